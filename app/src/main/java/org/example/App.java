@@ -8,22 +8,39 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
-import org.example.csv.LinkReader;
-import org.example.csv.MovieReader;
-import org.example.csv.RatingReader;
-import org.example.csv.TagReader;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.cache.ColumnarCache;
+import org.example.checkpoint.KafkaCheckpointStore;
+import org.example.dictionary.DictionaryPublisher;
+import org.example.dictionary.TagDictionary;
+import org.example.integrity.FileOrphanSink;
+import org.example.integrity.IntegrityFilter;
+import org.example.integrity.MovieIdSet;
+import org.example.integrity.OrphanSink;
+import org.example.integrity.TopicOrphanSink;
+import org.example.model.Event;
 import org.example.model.LinkEvent;
-import org.example.model.MovieEvent;
 import org.example.model.RatingEvent;
 import org.example.model.TagEvent;
-import org.example.producer.LinkEventProducer;
-import org.example.producer.MovieEventProducer;
-import org.example.producer.RatingEventProducer;
-import org.example.producer.TagEventProducer;
+import org.example.pipeline.PipelineConfig;
+import org.example.pipeline.PipelineRunner;
+import org.example.pipeline.SourceDefinition;
+import org.example.pipeline.SourceType;
+import org.example.producer.TransactionalEventProducer;
+import org.example.profile.StageProfiler;
+import org.example.spool.RetrySpool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +56,12 @@ public class App {
             // Read configuration
             final Properties config = readConfig("client.properties");
 
+            // The pipeline definition may live in a separate file
+            String pipelineFile = config.getProperty("pipeline.file");
+            if (pipelineFile != null && !pipelineFile.isBlank()) {
+                config.putAll(readConfig(pipelineFile.trim()));
+            }
+
             // Run the main application logic
             run(config);
             
@@ -51,46 +74,91 @@ public class App {
     }
 
     /**
-     * Main application logic for reading CSV and initializing Kafka producer
+     * Main application logic: runs the configured pipeline sources and sends their events to Kafka
      */
     private static void run(Properties config) throws Exception {
-        MovieEventProducer movieProducer = null;
-        RatingEventProducer ratingProducer = null;
-        TagEventProducer tagProducer = null;
-        LinkEventProducer linkProducer = null;
+        OrphanSink orphanSink = null;
+        DictionaryPublisher dictionaryPublisher = null;
+        TagDictionary tagDictionary = null;
+        RetrySpool retrySpool = null;
         try {
-            // Read CSV and create MovieEvent objects
-            List<MovieEvent> movieEvents = readMovieEvents("./ml_20m/movies_small.csv");
+            // Optional columnar cache of parsed CSV records
+            ColumnarCache cache = createCache(config);
+
+            // Optional per-stage profiling, reported at the end of the run
+            if (Boolean.parseBoolean(config.getProperty("profiler.enabled", "false"))) {
+                StageProfiler.enable(Integer.parseInt(config.getProperty("profiler.sample.rate", "64").trim()),
+                    Boolean.parseBoolean(config.getProperty("profiler.jfr", "false")));
+            }
+
+            List<SourceDefinition> sources = PipelineConfig.load(config);
+            PipelineRunner runner = new PipelineRunner(config, cache);
+
+            // Producers outside the transactional sources must not pick up a transactional.id
+            Properties producerConfig = PipelineConfig.nonTransactional(config);
+            if (config.getProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG) != null) {
+                logger.warn("Ignoring transactional.id for non-transactional producers, transactional sources"
+                    + " derive theirs from {}", TransactionalEventProducer.TRANSACTIONAL_ID_PREFIX_CONFIG);
+            }
+
+            // Optional disk-backed spool for failed sends
+            retrySpool = createRetrySpool(config);
+            runner.setRetrySpool(retrySpool);
+
+            // Exactly-once sources resume after the checkpoint committed with their last chunk
+            if (sources.stream().anyMatch(source -> source.sink() == SourceDefinition.Sink.TRANSACTIONAL)) {
+                runner.setCheckpointStore(new KafkaCheckpointStore(config,
+                    requireProperty(config, TransactionalEventProducer.CHECKPOINT_TOPIC_CONFIG)));
+            }
+
+            runner.onEventsRead(SourceType.MOVIES, movies -> {
+                if (movies.isEmpty()) {
+                    logger.warn("No movie events found in CSV file. Exiting.");
+                    runner.stop();
+                }
+            });
 
-            if (movieEvents.isEmpty()) {
-                logger.warn("No movie events found in CSV file. Exiting.");
-                return;
+            // Optional referential integrity check against the movie catalog
+            List<IntegrityFilter<?>> filters = new ArrayList<>();
+            if (Boolean.parseBoolean(config.getProperty("integrity.enabled", "false"))) {
+                checkMoviesFirst(sources);
+                AtomicReference<MovieIdSet> movieIds = new AtomicReference<>();
+                runner.onEventsRead(SourceType.MOVIES, movies -> {
+                    movieIds.set(MovieIdSet.fromMovies(movies));
+                    logger.info("Integrity check enabled with {} known movies", movieIds.get().size());
+                });
+                orphanSink = createOrphanSink(producerConfig);
+                filters.add(addFilter(runner, SourceType.RATINGS, movieIds, RatingEvent::getMovieId, orphanSink));
+                filters.add(addFilter(runner, SourceType.TAGS, movieIds, TagEvent::getMovieId, orphanSink));
+                filters.add(addFilter(runner, SourceType.LINKS, movieIds, LinkEvent::getMovieId, orphanSink));
             }
 
-            movieProducer = new MovieEventProducer(config);
-            for (MovieEvent event : movieEvents) {
-                movieProducer.sendEvent(event);
+            // Optional dictionary encoding of tag strings
+            if (Boolean.parseBoolean(config.getProperty("tags.dictionary.enabled", "false"))) {
+                String dictionaryTopic = requireProperty(config, "topic.tags.dictionary");
+                dictionaryPublisher = new DictionaryPublisher(
+                    new KafkaProducer<>(producerConfig, new StringSerializer(), new StringSerializer()), dictionaryTopic);
+                TagDictionary dictionary = new TagDictionary(
+                    DictionaryPublisher.loadEntries(config, dictionaryTopic), dictionaryPublisher);
+                runner.addStage(SourceType.TAGS, event -> {
+                    event.setTagId(dictionary.idFor(event.getTag()));
+                    event.setTag(null);
+                    return true;
+                });
+                tagDictionary = dictionary;
             }
 
-            // Read ratings CSV
-            List<RatingEvent> ratingEvents = readRatingEvents("./ml_20m/ratings_small.csv");
-            ratingProducer = new RatingEventProducer(config);
-            for (RatingEvent event : ratingEvents) {
-                ratingProducer.sendEvent(event);
+            runner.run(sources);
+            if (StageProfiler.isEnabled()) {
+                logger.info(StageProfiler.report());
             }
 
-            // Read tags CSV
-            List<TagEvent> tagEvents = readTagEvents("./ml_20m/tags_small.csv");
-            tagProducer = new TagEventProducer(config);
-            for (TagEvent event : tagEvents) {
-                tagProducer.sendEvent(event);
+            if (retrySpool != null) {
+                retrySpooled(producerConfig, retrySpool);
             }
 
-            // Read links CSV
-            List<LinkEvent> linkEvents = readLinkEvents("./ml_20m/links_small.csv");
-            linkProducer = new LinkEventProducer(config);
-            for (LinkEvent event : linkEvents) {
-                linkProducer.sendEvent(event);
+            for (IntegrityFilter<?> filter : filters) {
+                filter.logSummary();
             }
         } catch (IOException e) {
             logger.error("IO error occurred: {}", e.getMessage(), e);
@@ -99,17 +167,18 @@ public class App {
             logger.error("Unexpected error occurred: {}", e.getMessage(), e);
             throw e;
         } finally {
-            if (movieProducer != null) {
-                movieProducer.close();
+            if (orphanSink != null) {
+                orphanSink.close();
             }
-            if (ratingProducer != null) {
-                ratingProducer.close();
+            if (tagDictionary != null) {
+                saveTagDictionary(config, tagDictionary);
+                logger.info("Tag dictionary holds {} entries", tagDictionary.size());
             }
-            if (tagProducer != null) {
-                tagProducer.close();
+            if (dictionaryPublisher != null) {
+                dictionaryPublisher.close();
             }
-            if (linkProducer != null) {
-                linkProducer.close();
+            if (retrySpool != null) {
+                retrySpool.close();
             }
         }
     }
@@ -133,27 +202,123 @@ public class App {
     return config;
   }
 
-  private static List<MovieEvent> readMovieEvents(String filePath) throws IOException {
-      logger.info("Reading movie events from CSV file: {}", filePath);
-      MovieReader csvReader = new MovieReader();
-      return csvReader.readEvents(filePath);
+  /**
+   * Creates the columnar CSV cache if 'csv.cache.dir' is configured
+   * @return the cache, or null when caching is disabled
+   */
+  private static ColumnarCache createCache(Properties config) {
+      String cacheDir = config.getProperty("csv.cache.dir");
+      if (cacheDir == null || cacheDir.isBlank()) {
+          return null;
+      }
+      logger.info("Using CSV cache directory: {}", cacheDir);
+      return new ColumnarCache(Paths.get(cacheDir));
   }
 
-  private static List<RatingEvent> readRatingEvents(String filePath) throws IOException {
-      logger.info("Reading rating events from CSV file: {}", filePath);
-      RatingReader csvReader = new RatingReader();
-      return csvReader.readEvents(filePath);
+  /**
+   * Creates the retry spool if 'spool.dir' is configured
+   * @return the spool, or null if failed sends are only logged
+   */
+  private static RetrySpool createRetrySpool(Properties config) throws IOException {
+      String dir = config.getProperty("spool.dir");
+      if (dir == null || dir.isBlank()) {
+          return null;
+      }
+      return new RetrySpool(Paths.get(dir),
+          Long.parseLong(config.getProperty("spool.segment.bytes", "67108864").trim()),
+          Integer.parseInt(config.getProperty("spool.max.attempts", "5").trim()),
+          Long.parseLong(config.getProperty("spool.backoff.ms", "1000").trim()),
+          Long.parseLong(config.getProperty("spool.backoff.max.ms", "60000").trim()));
   }
 
-  private static List<TagEvent> readTagEvents(String filePath) throws IOException {
-      logger.info("Reading tag events from CSV file: {}", filePath);
-      TagReader csvReader = new TagReader();
-      return csvReader.readEvents(filePath);
+  /**
+   * Resends spooled records after the main stream, waiting at most 'spool.retry.timeout.ms'.
+   * Records still spooled afterwards are kept on disk for the next run.
+   */
+  private static void retrySpooled(Properties config, RetrySpool retrySpool) throws Exception {
+      long timeoutMs = Long.parseLong(config.getProperty("spool.retry.timeout.ms", "300000").trim());
+      try (KafkaProducer<byte[], byte[]> retryProducer =
+               new KafkaProducer<>(config, new ByteArraySerializer(), new ByteArraySerializer())) {
+          retrySpool.startRetry(retryProducer);
+          if (!retrySpool.awaitRetry(timeoutMs, TimeUnit.MILLISECONDS)) {
+              logger.warn("Retry spool not drained after {} ms, remaining records are kept for the next run", timeoutMs);
+          }
+          retrySpool.close();
+      }
+      retrySpool.logStatus();
   }
 
-    private static List<LinkEvent> readLinkEvents(String filePath) throws IOException {
-        logger.info("Reading link events from CSV file: {}", filePath);
-        LinkReader csvReader = new LinkReader();
-        return csvReader.readEvents(filePath);
-    }
+  /**
+   * Creates the sink for orphaned events from 'integrity.orphans.topic' or
+   * 'integrity.orphans.dir'
+   * @return the sink, or null if orphans should only be counted
+   */
+  private static OrphanSink createOrphanSink(Properties config) throws IOException {
+      String topic = config.getProperty("integrity.orphans.topic");
+      if (topic != null && !topic.isBlank()) {
+          return new TopicOrphanSink(new KafkaProducer<>(config), topic);
+      }
+      String dir = config.getProperty("integrity.orphans.dir");
+      if (dir != null && !dir.isBlank()) {
+          return new FileOrphanSink(Paths.get(dir));
+      }
+      return null;
+  }
+
+  /**
+   * Saves a readable snapshot of the tag dictionary to 'tags.dictionary.file', if set.
+   * Ids are kept stable by the dictionary topic, not by this file.
+   */
+  private static void saveTagDictionary(Properties config, TagDictionary dictionary) {
+      String file = config.getProperty("tags.dictionary.file");
+      if (file != null && !file.isBlank()) {
+          Path path = Paths.get(file);
+          try {
+              dictionary.save(path);
+              logger.info("Saved tag dictionary to {}", path);
+          } catch (IOException e) {
+              logger.error("Failed to save tag dictionary to {}", path, e);
+          }
+      }
+  }
+
+  private static String requireProperty(Properties config, String key) {
+      String value = config.getProperty(key);
+      if (value == null || value.isBlank()) {
+          throw new IllegalArgumentException("Required config '" + key + "' is not set");
+      }
+      return value;
+  }
+
+  /**
+   * The integrity check needs the movie catalog before any checked source starts.
+   * Groups run in ascending priority number, so every other source needs a
+   * larger number than the movies source.
+   */
+  private static void checkMoviesFirst(List<SourceDefinition> sources) {
+      int moviesPriority = Integer.MAX_VALUE;
+      for (SourceDefinition source : sources) {
+          if (source.type() == SourceType.MOVIES) {
+              moviesPriority = Math.min(moviesPriority, source.priority());
+          }
+      }
+      if (moviesPriority == Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("integrity.enabled is set but no movies source is configured");
+      }
+      for (SourceDefinition source : sources) {
+          if (source.type() != SourceType.MOVIES && source.priority() <= moviesPriority) {
+              throw new IllegalArgumentException("Source '" + source.name() + "' has priority " + source.priority()
+                  + " but must run after the movies source when integrity.enabled is set: give it a priority"
+                  + " number larger than " + moviesPriority);
+          }
+      }
+  }
+
+  private static <T extends Event> IntegrityFilter<T> addFilter(PipelineRunner runner, SourceType<T> type,
+                                                                AtomicReference<MovieIdSet> movieIds,
+                                                                Function<T, String> movieIdOf, OrphanSink orphanSink) {
+      IntegrityFilter<T> filter = new IntegrityFilter<>(type.getName(), movieIds::get, movieIdOf, orphanSink);
+      runner.addStage(type, filter::accept);
+      return filter;
+  }
 }
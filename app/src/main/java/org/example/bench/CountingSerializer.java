@@ -0,0 +1,35 @@
+package org.example.bench;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializer wrapper that counts the bytes produced by its delegate
+ */
+class CountingSerializer<T> implements Serializer<T> {
+
+    private final Serializer<T> delegate;
+    private final LongAdder bytes = new LongAdder();
+
+    CountingSerializer(Serializer<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        byte[] serialized = delegate.serialize(topic, data);
+        if (serialized != null) {
+            bytes.add(serialized.length);
+        }
+        return serialized;
+    }
+
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    void reset() {
+        bytes.reset();
+    }
+}
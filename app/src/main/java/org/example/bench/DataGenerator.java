@@ -0,0 +1,300 @@
+package org.example.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes synthetic MovieLens style movies.csv, ratings.csv, tags.csv and links.csv.
+ *
+ * Movie popularity is skewed so a small share of movies receives most ratings
+ * and tags, titles contain quoted commas, and a configurable share of rows is
+ * malformed (missing fields, non numeric values or unknown movie ids).
+ *
+ * Usage: DataGenerator &lt;outputDir&gt; [--movies N] [--users N] [--ratings N]
+ *        [--tags N] [--bad-row-rate R] [--seed S]
+ */
+public class DataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataGenerator.class);
+
+    private static final String[] GENRES = {
+        "Action", "Adventure", "Animation", "Children", "Comedy", "Crime", "Documentary", "Drama",
+        "Fantasy", "Film-Noir", "Horror", "IMAX", "Musical", "Mystery", "Romance", "Sci-Fi",
+        "Thriller", "War", "Western"
+    };
+    private static final String[] WORDS = {
+        "Story", "Night", "Return", "House", "Love", "City", "Last", "Dark", "Man", "Woman",
+        "Secret", "Island", "King", "War", "Dream", "Road", "Summer", "Ghost", "River", "Star"
+    };
+    private static final String[] TAGS = {
+        "atmospheric", "based on a book", "classic", "dark comedy", "funny", "visually appealing",
+        "twist ending", "Pixar", "sci-fi", "surreal", "quirky", "thought-provoking", "BD-R",
+        "Oscar (Best Picture)", "violence", "stylized", "great soundtrack", "nonlinear", "cult film", "funny, dark"
+    };
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long FIRST_TIMESTAMP = 789_652_009L;
+    private static final long LAST_TIMESTAMP = 1_427_784_002L;
+
+    /**
+     * Defects of malformed ratings and tags rows
+     */
+    private enum BadRow {
+        /** A required field is empty, rejected by the reader */
+        MISSING_FIELD,
+        /** A numeric field is not a number, rejected by the reader */
+        BAD_NUMBER,
+        /** A valid row whose movie id is not in movies.csv, dropped by the integrity check */
+        UNKNOWN_MOVIE
+    }
+
+    private final SplittableRandom random;
+    private final int movies;
+    private final int users;
+    private final long ratings;
+    private final long tags;
+    private final double badRowRate;
+
+    public DataGenerator(int movies, int users, long ratings, long tags, double badRowRate, long seed) {
+        if (movies < 1 || users < 1 || ratings < 0 || tags < 0 || badRowRate < 0 || badRowRate > 1) {
+            throw new IllegalArgumentException("Invalid generator settings");
+        }
+        this.random = new SplittableRandom(seed);
+        this.movies = movies;
+        this.users = users;
+        this.ratings = ratings;
+        this.tags = tags;
+        this.badRowRate = badRowRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DataGenerator <outputDir> [--movies N] [--users N] [--ratings N] "
+                + "[--tags N] [--bad-row-rate R] [--seed S]");
+            System.exit(1);
+        }
+        int movies = 27_278;
+        int users = 138_493;
+        long ratings = 20_000_263L;
+        long tags = 465_564L;
+        double badRowRate = 0.0001;
+        long seed = 42L;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--movies" -> movies = Integer.parseInt(args[i + 1]);
+                case "--users" -> users = Integer.parseInt(args[i + 1]);
+                case "--ratings" -> ratings = Long.parseLong(args[i + 1]);
+                case "--tags" -> tags = Long.parseLong(args[i + 1]);
+                case "--bad-row-rate" -> badRowRate = Double.parseDouble(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        new DataGenerator(movies, users, ratings, tags, badRowRate, seed).generate(Paths.get(args[0]));
+    }
+
+    /**
+     * Writes all four files to the output directory
+     */
+    public void generate(Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        long start = System.nanoTime();
+        writeMovies(outputDir.resolve("movies.csv"));
+        writeLinks(outputDir.resolve("links.csv"));
+        writeRatings(outputDir.resolve("ratings.csv"));
+        writeTags(outputDir.resolve("tags.csv"));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        logger.info("Generated {} movies, {} ratings and {} tags in {} s", movies, ratings, tags,
+            String.format("%.1f", seconds));
+    }
+
+    private void writeMovies(Path file) throws IOException {
+        try (Writer out = newWriter(file)) {
+            out.write("movieId,title,genres\n");
+            StringBuilder line = new StringBuilder(128);
+            for (int i = 0; i < movies; i++) {
+                line.setLength(0);
+                line.append(movieId(i)).append(',');
+                if (!isBadRow()) {
+                    // Bad rows have an empty title
+                    appendTitle(line);
+                }
+                line.append(',');
+                appendGenres(line);
+                out.append(line).append('\n');
+            }
+        }
+    }
+
+    private void writeLinks(Path file) throws IOException {
+        try (Writer out = newWriter(file)) {
+            out.write("movieId,imdbId,tmdbId\n");
+            StringBuilder line = new StringBuilder(32);
+            for (int i = 0; i < movies; i++) {
+                line.setLength(0);
+                line.append(movieId(i)).append(',');
+                appendPadded(line, 100_000 + random.nextInt(9_000_000), 7);
+                line.append(',');
+                if (!isBadRow()) {
+                    line.append(1 + random.nextInt(400_000));
+                }
+                out.append(line).append('\n');
+            }
+        }
+    }
+
+    private void writeRatings(Path file) throws IOException {
+        try (Writer out = newWriter(file)) {
+            out.write("userId,movieId,rating,timestamp\n");
+            StringBuilder line = new StringBuilder(48);
+            for (long i = 0; i < ratings; i++) {
+                line.setLength(0);
+                line.append(1 + random.nextInt(users)).append(',');
+                BadRow bad = badRow();
+                line.append(bad == BadRow.UNKNOWN_MOVIE ? unknownMovieId() : movieId(popularMovie())).append(',');
+                if (bad == BadRow.BAD_NUMBER) {
+                    line.append("x.5");
+                } else if (bad != BadRow.MISSING_FIELD) {
+                    int halfStars = 1 + random.nextInt(10);
+                    line.append(halfStars / 2).append('.').append(halfStars % 2 == 0 ? '0' : '5');
+                }
+                line.append(',').append(timestamp());
+                out.append(line).append('\n');
+            }
+        }
+    }
+
+    private void writeTags(Path file) throws IOException {
+        try (Writer out = newWriter(file)) {
+            out.write("userId,movieId,tag,timestamp\n");
+            StringBuilder line = new StringBuilder(64);
+            for (long i = 0; i < tags; i++) {
+                line.setLength(0);
+                line.append(1 + random.nextInt(users)).append(',');
+                BadRow bad = badRow();
+                line.append(bad == BadRow.UNKNOWN_MOVIE ? unknownMovieId() : movieId(popularMovie())).append(',');
+                if (bad != BadRow.MISSING_FIELD) {
+                    appendTag(line);
+                }
+                line.append(',');
+                if (bad == BadRow.BAD_NUMBER) {
+                    line.append('x');
+                } else {
+                    line.append(timestamp());
+                }
+                out.append(line).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Movie ids are sparse like in MovieLens: mostly sequential with gaps
+     */
+    private static int movieId(int index) {
+        return index + 1 + index / 10 * 3;
+    }
+
+    /**
+     * Picks a movie index with a power law skew: low indexes are far more popular
+     */
+    private int popularMovie() {
+        double u = random.nextDouble();
+        return (int) (movies * u * u * u);
+    }
+
+    private boolean isBadRow() {
+        return badRowRate > 0 && random.nextDouble() < badRowRate;
+    }
+
+    /**
+     * Returns the kind of defect for the next row, or null for a valid row.
+     * Each kind is equally likely and the only defect in its row, so rows
+     * with an unknown movie id still parse and reach the integrity check.
+     */
+    private BadRow badRow() {
+        return isBadRow() ? BadRow.values()[random.nextInt(BadRow.values().length)] : null;
+    }
+
+    /**
+     * Movie id that does not exist in movies.csv
+     */
+    private int unknownMovieId() {
+        return movieId(movies) + random.nextInt(1_000);
+    }
+
+    private void appendTitle(StringBuilder line) {
+        int words = 1 + random.nextInt(4);
+        boolean quoted = random.nextInt(8) == 0;
+        if (quoted) {
+            line.append('"');
+        }
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                line.append(' ');
+            }
+            line.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (quoted) {
+            line.append(", The");
+        }
+        line.append(" (").append(1900 + random.nextInt(116)).append(')');
+        if (quoted) {
+            line.append('"');
+        }
+    }
+
+    private void appendGenres(StringBuilder line) {
+        if (random.nextInt(50) == 0) {
+            line.append("(no genres listed)");
+            return;
+        }
+        int count = 1 + random.nextInt(3);
+        int first = random.nextInt(GENRES.length);
+        for (int g = 0; g < count; g++) {
+            if (g > 0) {
+                line.append('|');
+            }
+            line.append(GENRES[(first + g * 5) % GENRES.length]);
+        }
+    }
+
+    private void appendTag(StringBuilder line) {
+        String tag = TAGS[(int) (TAGS.length * Math.pow(random.nextDouble(), 2))];
+        int variant = random.nextInt(10);
+        if (tag.indexOf(',') >= 0 || tag.indexOf('"') >= 0) {
+            line.append('"').append(tag.replace("\"", "\"\"")).append('"');
+        } else if (variant == 0) {
+            line.append(tag.toUpperCase(Locale.ROOT));
+        } else if (variant == 1) {
+            line.append('"').append(' ').append(tag).append(' ').append('"');
+        } else {
+            line.append(tag);
+        }
+    }
+
+    private long timestamp() {
+        return FIRST_TIMESTAMP + random.nextLong(LAST_TIMESTAMP - FIRST_TIMESTAMP);
+    }
+
+    private static void appendPadded(StringBuilder line, int value, int width) {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            line.append('0');
+        }
+        line.append(digits);
+    }
+
+    private static Writer newWriter(Path file) throws IOException {
+        logger.info("Writing {}", file);
+        return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
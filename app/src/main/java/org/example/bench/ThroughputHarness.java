@@ -0,0 +1,150 @@
+package org.example.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.checkpoint.SourceCheckpoint;
+import org.example.csv.AbstractCSVReader;
+import org.example.csv.LinkReader;
+import org.example.csv.MovieReader;
+import org.example.csv.RatingReader;
+import org.example.csv.TagReader;
+import org.example.model.Event;
+import org.example.producer.AbstractEventProducer;
+import org.example.producer.EventProducer;
+import org.example.producer.LinkEventProducer;
+import org.example.producer.MovieEventProducer;
+import org.example.producer.RatingEventProducer;
+import org.example.producer.TagEventProducer;
+import org.example.producer.TransactionalEventProducer;
+import org.example.profile.StageProfiler;
+import org.example.serializer.JsonSerializer;
+
+/**
+ * End-to-end throughput harness for the read, serialize and send path.
+ *
+ * Each source file is read with its CSV reader and sent through its event
+ * producer into an auto-completing {@link MockProducer}, so no broker is
+ * needed. Reports rows/s, serialized MB/s, peak heap and GC time per source.
+ * The ratings are sent a second time through a {@link TransactionalEventProducer}.
+ * This shows only the client side cost of exactly-once mode. Commits on a
+ * MockProducer are free: there are no broker round trips, no
+ * AddPartitionsToTxn requests and no commit markers. The broker side cost
+ * must be measured against a real cluster, where the producer logs its
+ * mean commit time when it closes.
+ *
+ * Usage: ThroughputHarness &lt;dataDir&gt; [chunkRecords], where dataDir holds
+ * the files written by {@link DataGenerator} and chunkRecords is the
+ * transaction chunk size, 50000 by default.
+ */
+public class ThroughputHarness {
+
+    private static final String TOPIC = "bench";
+    // MockProducer keeps every record it sends; clear it periodically to bound the heap
+    private static final int CLEAR_INTERVAL = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ThroughputHarness <dataDir> [chunkRecords]");
+            System.exit(1);
+        }
+        String dataDir = args[0];
+        int chunkRecords = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        StageProfiler.enable(16, false);
+
+        System.out.printf("%-10s %12s %10s %12s %10s %12s %10s%n",
+            "source", "rows", "seconds", "rows/s", "MB/s", "peak heap MB", "GC ms");
+        run("movies", dataDir + "/movies.csv", new MovieReader(), MovieEventProducer::new);
+        run("links", dataDir + "/links.csv", new LinkReader(), LinkEventProducer::new);
+        run("ratings", dataDir + "/ratings.csv", new RatingReader(), RatingEventProducer::new);
+        run("tags", dataDir + "/tags.csv", new TagReader(), TagEventProducer::new);
+        runTransactional("ratings-tx", dataDir + "/ratings.csv", new RatingReader(), chunkRecords);
+        System.out.println();
+        System.out.print(StageProfiler.report());
+    }
+
+    private static <T extends Event> void run(String source, String path, AbstractCSVReader<T> reader,
+            BiFunction<Producer<String, T>, String, AbstractEventProducer<T>> producerFactory) throws Exception {
+        CountingSerializer<T> serializer = new CountingSerializer<>(new JsonSerializer<>());
+        MockProducer<String, T> mockProducer = new MockProducer<>(true, new StringSerializer(), serializer);
+        AbstractEventProducer<T> producer = producerFactory.apply(mockProducer, TOPIC);
+        measure(source, path, reader, producer, mockProducer::clear, serializer);
+    }
+
+    private static <T extends Event> void runTransactional(String source, String path, AbstractCSVReader<T> reader,
+                                                           int chunkRecords) throws Exception {
+        CountingSerializer<T> serializer = new CountingSerializer<>(new JsonSerializer<>());
+        MockProducer<String, byte[]> mockProducer =
+            new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        TransactionalEventProducer<T> producer = new TransactionalEventProducer<>(mockProducer, serializer, TOPIC,
+            TOPIC + "-checkpoints", chunkRecords, SourceCheckpoint.start(source, Path.of(path)));
+        measure(source, path, reader, producer, mockProducer::clear, serializer);
+        System.out.printf("%-10s %d transactions of up to %d records, client side only%n", "",
+            producer.getCommitCount(), chunkRecords);
+    }
+
+    private static <T extends Event> void measure(String source, String path, AbstractCSVReader<T> reader,
+                                                  EventProducer<T> producer, Runnable clear,
+                                                  CountingSerializer<T> serializer) throws Exception {
+        StageProfiler.setSource(source);
+        System.gc();
+        resetPeakHeap();
+        long gcStart = gcTimeMs();
+        long start = System.nanoTime();
+
+        List<T> events = reader.readEvents(path);
+        int sent = 0;
+        for (T event : events) {
+            producer.sendEvent(event);
+            if (++sent % CLEAR_INTERVAL == 0) {
+                clear.run();
+            }
+        }
+        producer.flush();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long gcMs = gcTimeMs() - gcStart;
+        long peakHeap = peakHeap();
+        producer.close();
+        StageProfiler.addSource(source, events.size(), (long) (seconds * 1e9));
+
+        System.out.printf("%-10s %12d %10.2f %12.0f %10.1f %12d %10d%n",
+            source, events.size(), seconds, events.size() / seconds,
+            serializer.getBytes() / 1e6 / seconds, peakHeap / (1024 * 1024), gcMs);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long gcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
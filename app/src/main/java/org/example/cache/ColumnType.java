@@ -0,0 +1,10 @@
+package org.example.cache;
+
+/**
+ * Physical column types supported by the columnar cache file
+ */
+public enum ColumnType {
+    STRING,
+    LONG,
+    DOUBLE
+}
@@ -0,0 +1,200 @@
+package org.example.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary columnar cache of parsed CSV records.
+ *
+ * Each source file gets one cache file holding its records as typed columns.
+ * The header records the source path, size and modification time; a cache
+ * file whose header no longer matches its source is ignored and rewritten.
+ * Reads memory-map the column sections and rebuild records without parsing.
+ */
+public class ColumnarCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarCache.class);
+    private static final int MAGIC = 0x4D50_4343; // "MPCC"
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".mpcc";
+
+    private final Path cacheDir;
+
+    public ColumnarCache(Path cacheDir) {
+        if (cacheDir == null) {
+            throw new IllegalArgumentException("cacheDir must not be null");
+        }
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Reads the cached records for a source file
+     *
+     * @return the records, or empty if there is no valid cache entry
+     */
+    public <T> Optional<List<T>> read(Path source, ColumnarCodec<T> codec) {
+        Path cacheFile = cacheFileFor(source);
+        if (!Files.exists(cacheFile)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            Header header = readHeader(Channels.newInputStream(channel));
+            if (!header.matches(source, codec)) {
+                logger.info("Cache entry {} is stale for {}", cacheFile, source);
+                return Optional.empty();
+            }
+
+            ColumnType[] types = codec.getColumnTypes();
+            ByteBuffer[] columns = new ByteBuffer[types.length];
+            for (int col = 0; col < types.length; col++) {
+                columns[col] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        header.columnOffsets[col], header.columnLengths[col]);
+            }
+
+            RowReader row = new RowReader(types, columns, header.rowCount);
+            List<T> records = new ArrayList<>(header.rowCount);
+            for (int i = 0; i < header.rowCount; i++) {
+                row.nextRow();
+                records.add(codec.readRow(row));
+            }
+            logger.info("Loaded {} records for {} from cache {}", header.rowCount, source, cacheFile);
+            return Optional.of(records);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable cache entry {}: {}", cacheFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the records parsed from a source file to its cache entry.
+     * Failures are logged and otherwise ignored, the cache is best effort.
+     */
+    public <T> void write(Path source, List<T> records, ColumnarCodec<T> codec) {
+        Path cacheFile = cacheFileFor(source);
+        try {
+            Files.createDirectories(cacheDir);
+            ColumnType[] types = codec.getColumnTypes();
+            RowWriter row = new RowWriter(types, records.size());
+            for (T record : records) {
+                row.nextRow();
+                codec.writeRow(record, row);
+            }
+
+            long[] lengths = new long[types.length];
+            for (int col = 0; col < types.length; col++) {
+                lengths[col] = row.columnLength(col);
+                if (lengths[col] > Integer.MAX_VALUE) {
+                    throw new IOException("Column " + col + " exceeds 2GB");
+                }
+            }
+
+            Header header = new Header(codec.getCodecId(), source.toAbsolutePath().toString(),
+                    Files.size(source), Files.getLastModifiedTime(source).toMillis(),
+                    records.size(), types, new long[types.length], lengths);
+            long offset = header.encode().length;
+            for (int col = 0; col < types.length; col++) {
+                header.columnOffsets[col] = offset;
+                offset += lengths[col];
+            }
+
+            Path tmpFile = Files.createTempFile(cacheDir, cacheFile.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream file = Files.newOutputStream(tmpFile);
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                    out.write(header.encode());
+                    for (int col = 0; col < types.length; col++) {
+                        row.writeColumn(col, out);
+                    }
+                }
+                Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                // No-op once the move succeeded, removes the partial file otherwise
+                Files.deleteIfExists(tmpFile);
+            }
+            logger.info("Wrote {} records for {} to cache {}", records.size(), source, cacheFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to write cache entry {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private Path cacheFileFor(Path source) {
+        Path absolute = source.toAbsolutePath().normalize();
+        String name = absolute.getFileName() + "-" + Integer.toHexString(absolute.toString().hashCode());
+        return cacheDir.resolve(name + EXTENSION);
+    }
+
+    private static Header readHeader(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a cache file");
+        }
+        if (in.readInt() != VERSION) {
+            throw new IOException("Unsupported cache file version");
+        }
+        String codecId = in.readUTF();
+        String sourcePath = in.readUTF();
+        long sourceSize = in.readLong();
+        long sourceModified = in.readLong();
+        int rowCount = in.readInt();
+        int columnCount = in.readInt();
+        ColumnType[] types = new ColumnType[columnCount];
+        long[] offsets = new long[columnCount];
+        long[] lengths = new long[columnCount];
+        for (int col = 0; col < columnCount; col++) {
+            types[col] = ColumnType.values()[in.readByte()];
+            offsets[col] = in.readLong();
+            lengths[col] = in.readLong();
+        }
+        return new Header(codecId, sourcePath, sourceSize, sourceModified, rowCount, types, offsets, lengths);
+    }
+
+    private record Header(String codecId, String sourcePath, long sourceSize, long sourceModified,
+                          int rowCount, ColumnType[] types, long[] columnOffsets, long[] columnLengths) {
+
+        boolean matches(Path source, ColumnarCodec<?> codec) throws IOException {
+            return codecId.equals(codec.getCodecId())
+                    && Arrays.equals(types, codec.getColumnTypes())
+                    && sourcePath.equals(source.toAbsolutePath().toString())
+                    && sourceSize == Files.size(source)
+                    && sourceModified == Files.getLastModifiedTime(source).toMillis();
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(codecId);
+            out.writeUTF(sourcePath);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(rowCount);
+            out.writeInt(types.length);
+            for (int col = 0; col < types.length; col++) {
+                out.writeByte(types[col].ordinal());
+                out.writeLong(columnOffsets[col]);
+                out.writeLong(columnLengths[col]);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.cache;
+
+/**
+ * Describes how a record type is laid out as typed columns in the cache file
+ */
+public interface ColumnarCodec<T> {
+
+    /**
+     * Returns a name identifying the codec and its layout version.
+     * Cache files written with a different codec id are discarded.
+     */
+    String getCodecId();
+
+    /**
+     * Returns the column types, in column order
+     */
+    ColumnType[] getColumnTypes();
+
+    /**
+     * Writes the fields of a record into the current row
+     */
+    void writeRow(T record, RowWriter row);
+
+    /**
+     * Builds a record from the current row
+     */
+    T readRow(RowReader row);
+}
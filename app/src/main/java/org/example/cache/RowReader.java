@@ -0,0 +1,75 @@
+package org.example.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cursor over the memory-mapped columns of a cache file
+ */
+public final class RowReader {
+
+    private final ColumnType[] types;
+    private final ByteBuffer[] columns;
+    private final int[] valuesOffset;
+    private final int[] stringDataOffset;
+    private byte[] scratch = new byte[64];
+    private int row = -1;
+
+    RowReader(ColumnType[] types, ByteBuffer[] columns, int rowCount) {
+        this.types = types;
+        this.columns = columns;
+        this.valuesOffset = new int[types.length];
+        this.stringDataOffset = new int[types.length];
+        int bitmapBytes = ((rowCount + 63) >>> 6) * Long.BYTES;
+        for (int col = 0; col < types.length; col++) {
+            valuesOffset[col] = bitmapBytes;
+            stringDataOffset[col] = bitmapBytes + (rowCount + 1) * Integer.BYTES;
+        }
+    }
+
+    void nextRow() {
+        row++;
+    }
+
+    public boolean isNull(int column) {
+        return (columns[column].getLong((row >>> 6) * Long.BYTES) & (1L << row)) != 0;
+    }
+
+    public String getString(int column) {
+        checkType(column, ColumnType.STRING);
+        if (isNull(column)) {
+            return null;
+        }
+        ByteBuffer buffer = columns[column];
+        int start = buffer.getInt(valuesOffset[column] + row * Integer.BYTES);
+        int end = buffer.getInt(valuesOffset[column] + (row + 1) * Integer.BYTES);
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(stringDataOffset[column] + start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public Long getLong(int column) {
+        checkType(column, ColumnType.LONG);
+        if (isNull(column)) {
+            return null;
+        }
+        return columns[column].getLong(valuesOffset[column] + row * Long.BYTES);
+    }
+
+    public Double getDouble(int column) {
+        checkType(column, ColumnType.DOUBLE);
+        if (isNull(column)) {
+            return null;
+        }
+        return columns[column].getDouble(valuesOffset[column] + row * Double.BYTES);
+    }
+
+    private void checkType(int column, ColumnType expected) {
+        if (types[column] != expected) {
+            throw new IllegalArgumentException("Column " + column + " is " + types[column] + ", not " + expected);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Accumulates rows column by column before they are written to a cache file
+ */
+public final class RowWriter {
+
+    private final ColumnType[] types;
+    private final long[][] nulls;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final byte[][][] strings;
+    private int row = -1;
+
+    RowWriter(ColumnType[] types, int rowCount) {
+        this.types = types;
+        this.nulls = new long[types.length][(rowCount + 63) >>> 6];
+        this.longs = new long[types.length][];
+        this.doubles = new double[types.length][];
+        this.strings = new byte[types.length][][];
+        for (int col = 0; col < types.length; col++) {
+            switch (types[col]) {
+                case LONG -> longs[col] = new long[rowCount];
+                case DOUBLE -> doubles[col] = new double[rowCount];
+                case STRING -> strings[col] = new byte[rowCount][];
+            }
+        }
+    }
+
+    void nextRow() {
+        row++;
+    }
+
+    public void putString(int column, String value) {
+        checkType(column, ColumnType.STRING);
+        if (value == null) {
+            markNull(column);
+        } else {
+            strings[column][row] = value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    public void putLong(int column, Long value) {
+        checkType(column, ColumnType.LONG);
+        if (value == null) {
+            markNull(column);
+        } else {
+            longs[column][row] = value;
+        }
+    }
+
+    public void putDouble(int column, Double value) {
+        checkType(column, ColumnType.DOUBLE);
+        if (value == null) {
+            markNull(column);
+        } else {
+            doubles[column][row] = value;
+        }
+    }
+
+    /**
+     * Returns the encoded size in bytes of a column section
+     */
+    long columnLength(int column) {
+        long length = (long) nulls[column].length * Long.BYTES;
+        switch (types[column]) {
+            case LONG -> length += (long) longs[column].length * Long.BYTES;
+            case DOUBLE -> length += (long) doubles[column].length * Double.BYTES;
+            case STRING -> {
+                length += (long) (strings[column].length + 1) * Integer.BYTES;
+                length += stringBytes(column);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes a column section: null bitmap followed by the values
+     */
+    void writeColumn(int column, DataOutputStream out) throws IOException {
+        for (long word : nulls[column]) {
+            out.writeLong(word);
+        }
+        switch (types[column]) {
+            case LONG -> {
+                for (long value : longs[column]) {
+                    out.writeLong(value);
+                }
+            }
+            case DOUBLE -> {
+                for (double value : doubles[column]) {
+                    out.writeDouble(value);
+                }
+            }
+            case STRING -> {
+                if (stringBytes(column) > Integer.MAX_VALUE) {
+                    throw new IOException("String column " + column + " exceeds 2GB");
+                }
+                int offset = 0;
+                out.writeInt(offset);
+                for (byte[] value : strings[column]) {
+                    offset += value == null ? 0 : value.length;
+                    out.writeInt(offset);
+                }
+                for (byte[] value : strings[column]) {
+                    if (value != null) {
+                        out.write(value);
+                    }
+                }
+            }
+        }
+    }
+
+    private long stringBytes(int column) {
+        return Arrays.stream(strings[column]).mapToLong(value -> value == null ? 0 : value.length).sum();
+    }
+
+    private void markNull(int column) {
+        nulls[column][row >>> 6] |= 1L << row;
+    }
+
+    private void checkType(int column, ColumnType expected) {
+        if (types[column] != expected) {
+            throw new IllegalArgumentException("Column " + column + " is " + types[column] + ", not " + expected);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.checkpoint;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Looks up the last committed checkpoint of a source
+ */
+@FunctionalInterface
+public interface CheckpointStore {
+
+    /**
+     * Returns the last committed checkpoint of a source, or empty if none was committed
+     */
+    Optional<SourceCheckpoint> load(String source) throws IOException;
+}
@@ -0,0 +1,40 @@
+package org.example.checkpoint;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.example.consumer.CompactedTopicReader;
+
+/**
+ * Reads checkpoints from the checkpoint topic.
+ *
+ * TransactionalEventProducer writes a checkpoint record, keyed by source
+ * name, in the same transaction as the events it covers. Reading the topic
+ * with isolation.level=read_committed therefore only sees checkpoints whose
+ * events were committed too. The topic should be compacted.
+ */
+public class KafkaCheckpointStore implements CheckpointStore {
+
+    private final Properties config;
+    private final String topic;
+
+    /**
+     * @param config Kafka client configuration, the connection settings are reused
+     * @param topic the checkpoint topic
+     */
+    public KafkaCheckpointStore(Properties config, String topic) {
+        this.config = config;
+        this.topic = topic;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    @Override
+    public Optional<SourceCheckpoint> load(String source) throws IOException {
+        byte[] latest = CompactedTopicReader.readLatest(config, topic).get(source);
+        return latest == null ? Optional.empty() : Optional.of(SourceCheckpoint.fromJson(latest));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.checkpoint;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * How far a source file has been committed in exactly-once mode.
+ *
+ * The file is identified by its path, size and modification time, so a
+ * checkpoint written for an older version of the file is not applied to a
+ * newer one.
+ *
+ * @param source name of the pipeline source
+ * @param path path of the CSV file
+ * @param size size of the file in bytes
+ * @param modifiedMs last modification time of the file
+ * @param offset number of leading events of the file that are committed
+ */
+public record SourceCheckpoint(String source, String path, long size, long modifiedMs, long offset) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Returns a checkpoint at offset 0 for the current version of a file
+     */
+    public static SourceCheckpoint start(String source, Path path) throws IOException {
+        return new SourceCheckpoint(source, path.toString(), Files.size(path),
+            Files.getLastModifiedTime(path).toMillis(), 0L);
+    }
+
+    /**
+     * Returns true if this checkpoint was written for the same version of the file
+     */
+    public boolean sameFile(SourceCheckpoint other) {
+        return path.equals(other.path) && size == other.size && modifiedMs == other.modifiedMs;
+    }
+
+    public SourceCheckpoint withOffset(long offset) {
+        return new SourceCheckpoint(source, path, size, modifiedMs, offset);
+    }
+
+    public byte[] toJson() throws IOException {
+        return MAPPER.writeValueAsBytes(this);
+    }
+
+    public static SourceCheckpoint fromJson(byte[] json) throws IOException {
+        return MAPPER.readValue(json, SourceCheckpoint.class);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.consumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the current state of a compacted topic: the latest value of every key.
+ *
+ * The topic is read from the beginning to its end offsets with
+ * isolation.level=read_committed, so values of aborted transactions are not
+ * seen. A key whose latest record is a tombstone is left out.
+ */
+public final class CompactedTopicReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactedTopicReader.class);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private CompactedTopicReader() {
+    }
+
+    /**
+     * @param config Kafka client configuration, the connection settings are reused
+     * @param topic the topic to read
+     * @return the latest value of every key, empty if the topic has no partitions
+     */
+    public static Map<String, byte[]> readLatest(Properties config, String topic) {
+        Map<String, byte[]> latest = new HashMap<>();
+        try (KafkaConsumer<String, byte[]> consumer =
+                 new KafkaConsumer<>(consumerConfig(config), new StringDeserializer(), new ByteArrayDeserializer())) {
+            List<PartitionInfo> infos = consumer.partitionsFor(topic);
+            if (infos == null || infos.isEmpty()) {
+                logger.warn("Topic {} has no partitions", topic);
+                return latest;
+            }
+            List<TopicPartition> partitions = new ArrayList<>(infos.size());
+            for (PartitionInfo info : infos) {
+                partitions.add(new TopicPartition(topic, info.partition()));
+            }
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            while (!reachedEnd(consumer, endOffsets)) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.value() == null) {
+                        latest.remove(record.key());
+                    } else {
+                        latest.put(record.key(), record.value());
+                    }
+                }
+            }
+        }
+        return latest;
+    }
+
+    private static Properties consumerConfig(Properties config) {
+        Properties consumerConfig = new Properties();
+        consumerConfig.putAll(config);
+        consumerConfig.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        consumerConfig.setProperty(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        consumerConfig.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return consumerConfig;
+    }
+
+    private static boolean reachedEnd(KafkaConsumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+            if (consumer.position(entry.getKey()) < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
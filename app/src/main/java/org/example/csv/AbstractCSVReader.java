@@ -2,15 +2,26 @@ package org.example.csv;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.example.cache.ColumnarCache;
+import org.example.cache.ColumnarCodec;
+import org.example.profile.Stage;
+import org.example.profile.StageProfiler;
+import org.example.profile.TimingReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,20 +32,60 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractCSVReader<T> {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ColumnarCache cache;
 
     /**
-     * Reads events from a CSV file
+     * Constructor for a reader that always parses the CSV file
+     */
+    protected AbstractCSVReader() {
+        this(null);
+    }
+
+    /**
+     * Constructor for a reader backed by a columnar cache
+     * @param cache cache of previously parsed records, or null to disable caching
+     */
+    protected AbstractCSVReader(ColumnarCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Reads events from a CSV file, or from its cache entry when one is
+     * present and still matches the file
      *
      * @param filePath Path to the CSV file
      * @return List of parsed objects
      * @throws IOException if file cannot be read
      */
     public List<T> readEvents(String filePath) throws IOException {
+        if (cache == null) {
+            return parseEvents(filePath);
+        }
+
+        Path source = Paths.get(filePath);
+        Optional<List<T>> cached = cache.read(source, getColumnarCodec());
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        List<T> events = parseEvents(filePath);
+        cache.write(source, events, getColumnarCodec());
+        return events;
+    }
+
+    private List<T> parseEvents(String filePath) throws IOException {
         List<T> events = new ArrayList<>();
 
         logger.info("Starting to read {} from CSV file: {}", getEventTypeName(), filePath);
 
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        // Fail on invalid UTF-8 like Files.newBufferedReader, instead of replacing it
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        TimingReader timingReader = new TimingReader(
+            new InputStreamReader(Files.newInputStream(Paths.get(filePath)), decoder));
+        try (BufferedReader reader = new BufferedReader(timingReader);
              CSVParser csvParser = new CSVParser(reader,
                  CSVFormat.DEFAULT.builder()
                             .setHeader()
@@ -64,8 +115,15 @@ public abstract class AbstractCSVReader<T> {
 
             logger.info("Successfully read {} {} from CSV. {} errors encountered.",
                        recordCount, getEventTypeName(), errorCount);
+        } catch (UncheckedIOException e) {
+            // The parser's iterator wraps read errors, e.g. a malformed UTF-8 sequence
+            throw e.getCause();
         }
 
+        String source = StageProfiler.currentSource();
+        StageProfiler.addTime(source, Stage.READ, timingReader.getNanos());
+        StageProfiler.addTime(source, Stage.PARSE, System.nanoTime() - start - timingReader.getNanos());
+
         return events;
     }
 
@@ -84,6 +142,11 @@ public abstract class AbstractCSVReader<T> {
      */
     protected abstract String getEventTypeName();
 
+    /**
+     * Returns the codec used to store parsed records in the columnar cache
+     */
+    protected abstract ColumnarCodec<T> getColumnarCodec();
+
     // ==================== Helper Methods ====================
 
     protected String getStringValue(CSVRecord record, String columnName, boolean required) {
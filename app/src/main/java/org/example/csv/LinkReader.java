@@ -1,10 +1,51 @@
 package org.example.csv;
 
 import org.apache.commons.csv.CSVRecord;
+import org.example.cache.ColumnType;
+import org.example.cache.ColumnarCache;
+import org.example.cache.ColumnarCodec;
+import org.example.cache.RowReader;
+import org.example.cache.RowWriter;
 import org.example.model.LinkEvent;
 
 public class LinkReader extends AbstractCSVReader<LinkEvent> {
 
+    private static final ColumnarCodec<LinkEvent> CODEC = new ColumnarCodec<>() {
+        private final ColumnType[] columnTypes = {
+            ColumnType.STRING, ColumnType.STRING, ColumnType.STRING
+        };
+
+        @Override
+        public String getCodecId() {
+            return "links-v1";
+        }
+
+        @Override
+        public ColumnType[] getColumnTypes() {
+            return columnTypes.clone();
+        }
+
+        @Override
+        public void writeRow(LinkEvent event, RowWriter row) {
+            row.putString(0, event.getMovieId());
+            row.putString(1, event.getImdbId());
+            row.putString(2, event.getTmdbId());
+        }
+
+        @Override
+        public LinkEvent readRow(RowReader row) {
+            return new LinkEvent(row.getString(0), row.getString(1), row.getString(2));
+        }
+    };
+
+    public LinkReader() {
+        super();
+    }
+
+    public LinkReader(ColumnarCache cache) {
+        super(cache);
+    }
+
     @Override
     protected LinkEvent parseCSVRecord(CSVRecord record) {
         try {
@@ -23,4 +64,9 @@ public class LinkReader extends AbstractCSVReader<LinkEvent> {
         return "link events";
     }
 
+    @Override
+    protected ColumnarCodec<LinkEvent> getColumnarCodec() {
+        return CODEC;
+    }
+
 }
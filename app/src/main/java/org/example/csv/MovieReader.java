@@ -1,6 +1,12 @@
 package org.example.csv;
 
 import org.apache.commons.csv.CSVRecord;
+import org.example.cache.ColumnType;
+import org.example.cache.ColumnarCache;
+import org.example.cache.ColumnarCodec;
+import org.example.cache.RowReader;
+import org.example.cache.RowWriter;
+import org.example.model.Genre;
 import org.example.model.MovieEvent;
 
 /**
@@ -8,6 +14,48 @@ import org.example.model.MovieEvent;
  */
 public class MovieReader extends AbstractCSVReader<MovieEvent> {
 
+    private static final ColumnarCodec<MovieEvent> CODEC = new ColumnarCodec<>() {
+        private final ColumnType[] columnTypes = {
+            ColumnType.STRING, ColumnType.STRING, ColumnType.STRING,
+            ColumnType.STRING, ColumnType.LONG, ColumnType.LONG
+        };
+
+        @Override
+        public String getCodecId() {
+            return "movies-v2";
+        }
+
+        @Override
+        public ColumnType[] getColumnTypes() {
+            return columnTypes.clone();
+        }
+
+        @Override
+        public void writeRow(MovieEvent event, RowWriter row) {
+            row.putString(0, event.getMovieId());
+            row.putString(1, event.getTitle());
+            row.putString(2, event.getGenres());
+            row.putString(3, event.getCleanTitle());
+            row.putLong(4, event.getYear() == null ? null : event.getYear().longValue());
+            row.putLong(5, event.getGenreMask());
+        }
+
+        @Override
+        public MovieEvent readRow(RowReader row) {
+            Long year = row.getLong(4);
+            return new MovieEvent(row.getString(0), row.getString(1), row.getString(2),
+                row.getString(3), year == null ? null : year.intValue(), row.getLong(5));
+        }
+    };
+
+    public MovieReader() {
+        super();
+    }
+
+    public MovieReader(ColumnarCache cache) {
+        super(cache);
+    }
+
     @Override
     protected MovieEvent parseCSVRecord(CSVRecord record) {
         try {
@@ -15,7 +63,12 @@ public class MovieReader extends AbstractCSVReader<MovieEvent> {
             String title = getStringValue(record, "title", true);
             String genres = getStringValue(record, "genres", false);
 
-            return new MovieEvent(movieId, title, genres);
+            int yearStart = yearStart(title);
+            Integer year = yearStart < 0 ? null : parseYear(title, yearStart);
+            // A title that is only a year, e.g. "(1995)", has an empty clean title
+            String cleanTitle = yearStart < 0 ? title : title.substring(0, yearStart).trim();
+
+            return new MovieEvent(movieId, title, genres, cleanTitle, year, Genre.parseMask(genres));
         } catch (Exception e) {
             throw new IllegalArgumentException("Failed to parse CSV record: " + e.getMessage(), e);
         }
@@ -25,4 +78,43 @@ public class MovieReader extends AbstractCSVReader<MovieEvent> {
     protected String getEventTypeName() {
         return "movie events";
     }
+
+    @Override
+    protected ColumnarCodec<MovieEvent> getColumnarCodec() {
+        return CODEC;
+    }
+
+    /**
+     * Finds the release year suffix of a title, e.g. "(1995)" or "(1994-1998)"
+     * @return index of the opening parenthesis, or -1 if the title has no year
+     */
+    static int yearStart(String title) {
+        int end = title.length();
+        while (end > 0 && title.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end == 0 || title.charAt(end - 1) != ')') {
+            return -1;
+        }
+        int open = title.lastIndexOf('(', end - 1);
+        if (open < 0 || end - open < 6) {
+            return -1;
+        }
+        for (int i = open + 1; i < open + 5; i++) {
+            char c = title.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        char next = title.charAt(open + 5);
+        return next == ')' || next == '-' ? open : -1;
+    }
+
+    private static int parseYear(String title, int yearStart) {
+        int year = 0;
+        for (int i = yearStart + 1; i < yearStart + 5; i++) {
+            year = year * 10 + (title.charAt(i) - '0');
+        }
+        return year;
+    }
 }
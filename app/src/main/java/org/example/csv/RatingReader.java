@@ -1,6 +1,11 @@
 package org.example.csv;
 
 import org.apache.commons.csv.CSVRecord;
+import org.example.cache.ColumnType;
+import org.example.cache.ColumnarCache;
+import org.example.cache.ColumnarCodec;
+import org.example.cache.RowReader;
+import org.example.cache.RowWriter;
 import org.example.model.RatingEvent;
 
 /**
@@ -8,6 +13,43 @@ import org.example.model.RatingEvent;
  */
 public class RatingReader extends AbstractCSVReader<RatingEvent> {
 
+    private static final ColumnarCodec<RatingEvent> CODEC = new ColumnarCodec<>() {
+        private final ColumnType[] columnTypes = {
+            ColumnType.STRING, ColumnType.STRING, ColumnType.DOUBLE, ColumnType.LONG
+        };
+
+        @Override
+        public String getCodecId() {
+            return "ratings-v1";
+        }
+
+        @Override
+        public ColumnType[] getColumnTypes() {
+            return columnTypes.clone();
+        }
+
+        @Override
+        public void writeRow(RatingEvent event, RowWriter row) {
+            row.putString(0, event.getUserId());
+            row.putString(1, event.getMovieId());
+            row.putDouble(2, event.getRating());
+            row.putLong(3, event.getTimestamp());
+        }
+
+        @Override
+        public RatingEvent readRow(RowReader row) {
+            return new RatingEvent(row.getString(0), row.getString(1), row.getDouble(2), row.getLong(3));
+        }
+    };
+
+    public RatingReader() {
+        super();
+    }
+
+    public RatingReader(ColumnarCache cache) {
+        super(cache);
+    }
+
     @Override
     protected RatingEvent parseCSVRecord(CSVRecord record) {
         try {
@@ -26,4 +68,9 @@ public class RatingReader extends AbstractCSVReader<RatingEvent> {
     protected String getEventTypeName() {
         return "rating events";
     }
+
+    @Override
+    protected ColumnarCodec<RatingEvent> getColumnarCodec() {
+        return CODEC;
+    }
 }
@@ -1,6 +1,11 @@
 package org.example.csv;
 
 import org.apache.commons.csv.CSVRecord;
+import org.example.cache.ColumnType;
+import org.example.cache.ColumnarCache;
+import org.example.cache.ColumnarCodec;
+import org.example.cache.RowReader;
+import org.example.cache.RowWriter;
 import org.example.model.TagEvent;
 
 /**
@@ -8,6 +13,43 @@ import org.example.model.TagEvent;
  */
 public class TagReader extends AbstractCSVReader<TagEvent> {
 
+    private static final ColumnarCodec<TagEvent> CODEC = new ColumnarCodec<>() {
+        private final ColumnType[] columnTypes = {
+            ColumnType.STRING, ColumnType.STRING, ColumnType.STRING, ColumnType.LONG
+        };
+
+        @Override
+        public String getCodecId() {
+            return "tags-v1";
+        }
+
+        @Override
+        public ColumnType[] getColumnTypes() {
+            return columnTypes.clone();
+        }
+
+        @Override
+        public void writeRow(TagEvent event, RowWriter row) {
+            row.putString(0, event.getUserId());
+            row.putString(1, event.getMovieId());
+            row.putString(2, event.getTag());
+            row.putLong(3, event.getTimestamp());
+        }
+
+        @Override
+        public TagEvent readRow(RowReader row) {
+            return new TagEvent(row.getString(0), row.getString(1), row.getString(2), row.getLong(3));
+        }
+    };
+
+    public TagReader() {
+        super();
+    }
+
+    public TagReader(ColumnarCache cache) {
+        super(cache);
+    }
+
     @Override
     protected TagEvent parseCSVRecord(CSVRecord record) {
         try {
@@ -26,4 +68,9 @@ public class TagReader extends AbstractCSVReader<TagEvent> {
     protected String getEventTypeName() {
         return "tags";
     }
+
+    @Override
+    protected ColumnarCodec<TagEvent> getColumnarCodec() {
+        return CODEC;
+    }
 }
@@ -0,0 +1,80 @@
+package org.example.dictionary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.example.consumer.CompactedTopicReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes new dictionary entries to a dictionary topic, keyed by id.
+ * The topic is expected to use cleanup.policy=compact so that it always
+ * holds the latest value of every id, and is read back at startup so that
+ * ids survive failed runs.
+ */
+public class DictionaryPublisher implements TagDictionary.EntryListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionaryPublisher.class);
+
+    private final Producer<String, String> producer;
+    private final String topicName;
+    private final LongAdder failed = new LongAdder();
+
+    public DictionaryPublisher(Producer<String, String> producer, String topicName) {
+        this.producer = producer;
+        this.topicName = topicName;
+    }
+
+    /**
+     * Reads the entries published so far from the dictionary topic
+     * @param config Kafka client configuration
+     * @return the entries, keyed by normalized tag
+     */
+    public static Map<String, Integer> loadEntries(Properties config, String topicName) {
+        Map<String, Integer> entries = new HashMap<>();
+        CompactedTopicReader.readLatest(config, topicName).forEach((key, value) -> {
+            try {
+                // A tag published under two ids keeps the higher one, so neither id is reused
+                entries.merge(new String(value, StandardCharsets.UTF_8), Integer.valueOf(key), Math::max);
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring dictionary entry with invalid id '{}'", key);
+            }
+        });
+        logger.info("Loaded {} tag dictionary entries from topic {}", entries.size(), topicName);
+        return entries;
+    }
+
+    @Override
+    public void onNewEntry(int id, String tag) {
+        String key = Integer.toString(id);
+        producer.send(new ProducerRecord<>(topicName, key, tag), (metadata, exception) -> {
+            if (exception != null) {
+                failed.increment();
+                logger.error("Failed to publish dictionary entry {}: {}", key, tag, exception);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of entries whose publish failed
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() {
+        producer.flush();
+        if (failed.sum() > 0) {
+            logger.error("{} dictionary entries were not published, their ids may be reassigned by the next run",
+                failed.sum());
+        }
+        producer.close();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.dictionary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent interning dictionary mapping normalized tag strings to integer ids.
+ *
+ * Ids are assigned in first-seen order and never change. To keep them stable
+ * across runs the dictionary is seeded with the entries already published,
+ * see {@link DictionaryPublisher#loadEntries}. {@link #save(Path)} writes a
+ * readable snapshot with one 'id&lt;TAB&gt;tag' entry per line; it is not read back.
+ */
+public class TagDictionary {
+
+    /**
+     * Notified once for every entry added to the dictionary
+     */
+    @FunctionalInterface
+    public interface EntryListener {
+        void onNewEntry(int id, String tag);
+    }
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId;
+    private final EntryListener listener;
+
+    public TagDictionary(EntryListener listener) {
+        this(Map.of(), listener);
+    }
+
+    /**
+     * @param entries previously assigned ids, keyed by normalized tag
+     * @param listener notified of new entries, may be null
+     */
+    public TagDictionary(Map<String, Integer> entries, EntryListener listener) {
+        this.ids.putAll(entries);
+        this.nextId = new AtomicInteger(entries.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1);
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the id of a tag, assigning a new one if the normalized tag has not been seen
+     */
+    public int idFor(String tag) {
+        String normalized = normalize(tag);
+        Integer id = ids.get(normalized);
+        if (id != null) {
+            return id;
+        }
+        boolean[] added = new boolean[1];
+        id = ids.computeIfAbsent(normalized, key -> {
+            added[0] = true;
+            return nextId.getAndIncrement();
+        });
+        // Notify outside computeIfAbsent, the listener may block on I/O
+        if (added[0] && listener != null) {
+            listener.onNewEntry(id, normalized);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of entries
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Normalizes a tag: trimmed, lower case, runs of whitespace collapsed to one space
+     */
+    public static String normalize(String tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("tag must not be null");
+        }
+        StringBuilder normalized = new StringBuilder(tag.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < tag.length(); i++) {
+            char c = tag.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Saves all entries, ordered by id
+     */
+    public void save(Path file) throws IOException {
+        Map<Integer, String> byId = new TreeMap<>();
+        ids.forEach((tag, id) -> byId.put(id, tag));
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Integer, String> entry : byId.entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue());
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.integrity;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.example.model.Event;
+import org.example.serializer.JsonSerializer;
+
+/**
+ * Writes orphaned events as JSON lines, one file per source
+ * (e.g. ratings.orphans.jsonl) in the configured directory
+ */
+public class FileOrphanSink implements OrphanSink {
+
+    private final Path directory;
+    private final JsonSerializer<Event> serializer = new JsonSerializer<>();
+    private final Map<String, OutputStream> outputs = new HashMap<>();
+
+    public FileOrphanSink(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public synchronized void write(String source, Event event) throws IOException {
+        OutputStream out = outputs.get(source);
+        if (out == null) {
+            out = new BufferedOutputStream(Files.newOutputStream(directory.resolve(source + ".orphans.jsonl")));
+            outputs.put(source, out);
+        }
+        out.write(serializer.serialize(source, event));
+        out.write('\n');
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (OutputStream out : outputs.values()) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        outputs.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
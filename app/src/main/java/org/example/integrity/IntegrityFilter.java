@@ -0,0 +1,69 @@
+package org.example.integrity;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.example.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks that events reference a movie present in movies.csv.
+ * Events that do not are handed to an {@link OrphanSink} instead of being sent.
+ */
+public class IntegrityFilter<T extends Event> {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntegrityFilter.class);
+
+    private final String source;
+    private final Supplier<MovieIdSet> movieIds;
+    private final Function<T, String> movieIdOf;
+    private final OrphanSink orphanSink;
+    private final LongAdder checkedCount = new LongAdder();
+    private final LongAdder orphanCount = new LongAdder();
+
+    /**
+     * @param source name of the checked source, used for logging and by the sink
+     * @param movieIds supplies the valid movie ids, which may only be known once movies.csv is read
+     * @param movieIdOf extracts the referenced movie id from an event
+     * @param orphanSink destination for orphaned events, or null to just drop them
+     */
+    public IntegrityFilter(String source, Supplier<MovieIdSet> movieIds, Function<T, String> movieIdOf, OrphanSink orphanSink) {
+        this.source = source;
+        this.movieIds = movieIds;
+        this.movieIdOf = movieIdOf;
+        this.orphanSink = orphanSink;
+    }
+
+    /**
+     * Returns true if the event references a known movie and should be sent
+     */
+    public boolean accept(T event) throws IOException {
+        MovieIdSet validIds = movieIds.get();
+        if (validIds == null) {
+            throw new IllegalStateException("Movies must be read before " + source + " can be checked");
+        }
+        checkedCount.increment();
+        if (validIds.contains(movieIdOf.apply(event))) {
+            return true;
+        }
+        orphanCount.increment();
+        if (orphanSink != null) {
+            orphanSink.write(source, event);
+        }
+        return false;
+    }
+
+    public long getCheckedCount() { return checkedCount.sum(); }
+
+    public long getOrphanCount() { return orphanCount.sum(); }
+
+    /**
+     * Logs the number of checked and orphaned events
+     */
+    public void logSummary() {
+        logger.info("Integrity check for {}: {} events checked, {} orphans", source, checkedCount.sum(), orphanCount.sum());
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.integrity;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.example.model.MovieEvent;
+
+/**
+ * Compact set of valid movie ids, backed by a bitset indexed by id.
+ *
+ * MovieLens ids are small positive integers, so the whole catalog fits in
+ * a few kilobytes. If the ids are sparse, e.g. because of one huge id in a
+ * bad row, a sorted array searched by bisection is used instead so memory
+ * stays proportional to the number of movies. Lookups parse the id string
+ * in place and never allocate.
+ */
+public final class MovieIdSet {
+
+    // A bitset may use up to this many bits per id, plus DENSE_SLACK_BITS
+    private static final long DENSE_BITS_PER_ID = 64;
+    private static final long DENSE_SLACK_BITS = 1 << 16;
+
+    private final long[] bits;
+    private final int[] sortedIds;
+    private final int size;
+
+    private MovieIdSet(long[] bits, int[] sortedIds, int size) {
+        this.bits = bits;
+        this.sortedIds = sortedIds;
+        this.size = size;
+    }
+
+    /**
+     * Builds the set from the movies read from movies.csv.
+     * Movies whose id is not a non-negative integer are ignored.
+     */
+    public static MovieIdSet fromMovies(List<MovieEvent> movies) {
+        int maxId = -1;
+        for (MovieEvent movie : movies) {
+            maxId = Math.max(maxId, parseId(movie.getMovieId()));
+        }
+        if (maxId < 0) {
+            // No movie has a valid id, e.g. movies.csv is empty
+            return new MovieIdSet(new long[0], null, 0);
+        }
+        if (maxId > DENSE_BITS_PER_ID * movies.size() + DENSE_SLACK_BITS) {
+            return sparse(movies);
+        }
+
+        long[] bits = new long[(maxId >>> 6) + 1];
+        int size = 0;
+        for (MovieEvent movie : movies) {
+            int id = parseId(movie.getMovieId());
+            if (id >= 0 && (bits[id >>> 6] & (1L << id)) == 0) {
+                bits[id >>> 6] |= 1L << id;
+                size++;
+            }
+        }
+        return new MovieIdSet(bits, null, size);
+    }
+
+    private static MovieIdSet sparse(List<MovieEvent> movies) {
+        int[] ids = new int[movies.size()];
+        int count = 0;
+        for (MovieEvent movie : movies) {
+            int id = parseId(movie.getMovieId());
+            if (id >= 0) {
+                ids[count++] = id;
+            }
+        }
+        Arrays.sort(ids, 0, count);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || ids[i] != ids[size - 1]) {
+                ids[size++] = ids[i];
+            }
+        }
+        return new MovieIdSet(null, Arrays.copyOf(ids, size), size);
+    }
+
+    /**
+     * Returns true if the movie id belongs to a known movie
+     */
+    public boolean contains(String movieId) {
+        int id = parseId(movieId);
+        if (sortedIds != null) {
+            return id >= 0 && Arrays.binarySearch(sortedIds, id) >= 0;
+        }
+        return id >= 0 && (id >>> 6) < bits.length && (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Returns the number of distinct movie ids in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parses a decimal id without allocating
+     * @return the id, or -1 if the value is null, empty, not numeric or too large
+     */
+    static int parseId(String value) {
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = 0; i < value.length(); i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || id > (Integer.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+}
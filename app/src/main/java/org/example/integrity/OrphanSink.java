@@ -0,0 +1,20 @@
+package org.example.integrity;
+
+import java.io.IOException;
+
+import org.example.model.Event;
+
+/**
+ * Destination for events that reference an unknown movie
+ */
+public interface OrphanSink extends AutoCloseable {
+
+    /**
+     * Records an orphaned event
+     * @param source name of the source the event was read from, e.g. "ratings"
+     */
+    void write(String source, Event event) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
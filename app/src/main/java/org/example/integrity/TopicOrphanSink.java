@@ -0,0 +1,44 @@
+package org.example.integrity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.example.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends orphaned events to a side topic. The source name is carried in
+ * the 'source' record header.
+ */
+public class TopicOrphanSink implements OrphanSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicOrphanSink.class);
+
+    private final Producer<String, Event> producer;
+    private final String topicName;
+
+    public TopicOrphanSink(Producer<String, Event> producer, String topicName) {
+        this.producer = producer;
+        this.topicName = topicName;
+    }
+
+    @Override
+    public void write(String source, Event event) {
+        ProducerRecord<String, Event> record = new ProducerRecord<>(topicName, null, null, event.getKey(), event,
+                List.of(new RecordHeader("source", source.getBytes(StandardCharsets.UTF_8))));
+        producer.send(record, (metadata, exception) -> {
+            if (exception != null) {
+                logger.error("Failed to send orphaned {} event: {}", source, event.getKey(), exception);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * MovieLens genres. Each genre is one bit of a movie's genre mask.
+ */
+public enum Genre {
+    ACTION("Action"),
+    ADVENTURE("Adventure"),
+    ANIMATION("Animation"),
+    CHILDREN("Children"),
+    COMEDY("Comedy"),
+    CRIME("Crime"),
+    DOCUMENTARY("Documentary"),
+    DRAMA("Drama"),
+    FANTASY("Fantasy"),
+    FILM_NOIR("Film-Noir"),
+    HORROR("Horror"),
+    IMAX("IMAX"),
+    MUSICAL("Musical"),
+    MYSTERY("Mystery"),
+    ROMANCE("Romance"),
+    SCI_FI("Sci-Fi"),
+    THRILLER("Thriller"),
+    WAR("War"),
+    WESTERN("Western");
+
+    private static final Genre[] VALUES = values();
+
+    private final String label;
+
+    Genre(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the name used in movies.csv, e.g. "Sci-Fi"
+     */
+    public String getLabel() { return label; }
+
+    /**
+     * Returns the bit of this genre in a genre mask
+     */
+    public long mask() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Parses a pipe-delimited genre list into a mask without allocating.
+     * Unknown genres and "(no genres listed)" contribute no bits.
+     */
+    public static long parseMask(String genres) {
+        if (genres == null) {
+            return 0L;
+        }
+        long mask = 0L;
+        int start = 0;
+        int length = genres.length();
+        while (start <= length) {
+            int end = genres.indexOf('|', start);
+            if (end < 0) {
+                end = length;
+            }
+            mask |= maskOf(genres, start, end);
+            start = end + 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the genres of a mask
+     */
+    public static Set<Genre> fromMask(long mask) {
+        Set<Genre> genres = EnumSet.noneOf(Genre.class);
+        for (Genre genre : VALUES) {
+            if ((mask & genre.mask()) != 0) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
+    private static long maskOf(String genres, int start, int end) {
+        while (start < end && genres.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && genres.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int length = end - start;
+        for (Genre genre : VALUES) {
+            if (genre.label.length() == length && genres.regionMatches(true, start, genre.label, 0, length)) {
+                return genre.mask();
+            }
+        }
+        return 0L;
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.model;
 
 import java.util.Objects;
+import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -17,6 +19,18 @@ public class MovieEvent implements Event {
     
     @JsonProperty("genres")
     private String genres;
+
+    // Title without the release year, e.g. "Toy Story"
+    @JsonProperty("cleanTitle")
+    private String cleanTitle;
+
+    // Release year parsed from the title, null if the title has none
+    @JsonProperty("year")
+    private Integer year;
+
+    // Bitmask of Genre values, see Genre.mask()
+    @JsonProperty("genreMask")
+    private long genreMask;
     
     // Default constructor
     public MovieEvent() {
@@ -28,6 +42,14 @@ public class MovieEvent implements Event {
         this.title = title;
         this.genres = genres;
     }
+
+    // Constructor with the fields derived from title and genres
+    public MovieEvent(String movieId, String title, String genres, String cleanTitle, Integer year, long genreMask) {
+        this(movieId, title, genres);
+        this.cleanTitle = cleanTitle;
+        this.year = year;
+        this.genreMask = genreMask;
+    }
     
     // Getters and setters
     public String getMovieId() { return movieId; }
@@ -38,6 +60,18 @@ public class MovieEvent implements Event {
     
     public String getGenres() { return genres; }
     public void setGenres(String genres) { this.genres = genres; }
+
+    public String getCleanTitle() { return cleanTitle; }
+    public void setCleanTitle(String cleanTitle) { this.cleanTitle = cleanTitle; }
+
+    public Integer getYear() { return year; }
+    public void setYear(Integer year) { this.year = year; }
+
+    public long getGenreMask() { return genreMask; }
+    public void setGenreMask(long genreMask) { this.genreMask = genreMask; }
+
+    @JsonIgnore
+    public Set<Genre> getGenreSet() { return Genre.fromMask(genreMask); }
     
     @Override
     public String getKey() { return movieId; }
@@ -61,6 +95,9 @@ public class MovieEvent implements Event {
                 "movieId='" + movieId + '\'' +
                 ", title='" + title + '\'' +
                 ", genres='" + genres + '\'' +
+                ", cleanTitle='" + cleanTitle + '\'' +
+                ", year=" + year +
+                ", genreMask=" + genreMask +
                 '}';
     }
 }
\ No newline at end of file
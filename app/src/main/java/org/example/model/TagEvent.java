@@ -2,6 +2,7 @@ package org.example.model;
 
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -16,7 +17,13 @@ public class TagEvent implements Event {
     private String movieId;
     
     @JsonProperty("tag")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String tag;
+
+    // Dictionary id of the tag, set instead of tag when dictionary encoding is enabled
+    @JsonProperty("tagId")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer tagId;
     
     @JsonProperty("timestamp")
     private Long timestamp;
@@ -42,6 +49,9 @@ public class TagEvent implements Event {
     
     public String getTag() { return tag; }
     public void setTag(String tag) { this.tag = tag; }
+
+    public Integer getTagId() { return tagId; }
+    public void setTagId(Integer tagId) { this.tagId = tagId; }
     
     public Long getTimestamp() { return timestamp; }
     public void setTimestamp(Long timestamp) { this.timestamp = timestamp; }
@@ -57,12 +67,13 @@ public class TagEvent implements Event {
         return Objects.equals(userId, that.userId) && 
                Objects.equals(movieId, that.movieId) &&
                Objects.equals(tag, that.tag) &&
+               Objects.equals(tagId, that.tagId) &&
                Objects.equals(timestamp, that.timestamp);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(userId, movieId, tag, timestamp);
+        return Objects.hash(userId, movieId, tag, tagId, timestamp);
     }
     
     @Override
@@ -71,6 +82,7 @@ public class TagEvent implements Event {
                 "userId='" + userId + '\'' +
                 ", movieId='" + movieId + '\'' +
                 ", tag='" + tag + '\'' +
+                ", tagId=" + tagId +
                 ", timestamp=" + timestamp +
                 '}';
     }
@@ -0,0 +1,18 @@
+package org.example.pipeline;
+
+import java.io.IOException;
+
+import org.example.model.Event;
+
+/**
+ * Processing step applied to each event after it is read and before it is sent
+ */
+@FunctionalInterface
+public interface EventStage<T extends Event> {
+
+    /**
+     * Processes an event, possibly modifying it
+     * @return false if the event should not be sent
+     */
+    boolean apply(T event) throws IOException;
+}
@@ -0,0 +1,146 @@
+package org.example.pipeline;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.example.producer.EnvelopeEventProducer;
+
+/**
+ * Reads the pipeline definition from configuration properties.
+ *
+ * <pre>
+ * pipeline.sources=movies,links,ratings,tags
+ * pipeline.source.ratings.path=./ml_20m/ratings.csv
+ * pipeline.source.ratings.type=ratings          (defaults to the source name)
+ * pipeline.source.ratings.topic=ratings         (defaults to the type's topic.* key)
+ * pipeline.source.ratings.sink=kafka|envelope|transactional
+ * pipeline.source.ratings.parallelism=6
+ * pipeline.source.ratings.max.in.flight=50000
+ * pipeline.source.ratings.priority=2
+ * pipeline.source.ratings.producer.linger.ms=20 (Kafka producer overrides)
+ * </pre>
+ *
+ * Without 'pipeline.sources' the four MovieLens sample files under ./ml_20m
+ * are used, with the movies and links reference data first. Their settings
+ * can still be overridden with the same keys, e.g. pipeline.source.ratings.parallelism.
+ *
+ * A transactional sink sends the source exactly once and resumes after the
+ * last committed chunk when run again. It needs 'topic.checkpoints' and a
+ * parallelism of 1, see TransactionalEventProducer.
+ */
+public final class PipelineConfig {
+
+    public static final String SOURCES = "pipeline.sources";
+    public static final String SOURCE_PREFIX = "pipeline.source.";
+    public static final String PRODUCER_PREFIX = "producer.";
+
+    private PipelineConfig() {
+    }
+
+    /**
+     * Returns the configured sources, ordered by priority
+     */
+    public static List<SourceDefinition> load(Properties config) {
+        List<SourceDefinition> sources = new ArrayList<>();
+        String names = config.getProperty(SOURCES);
+        if (names == null || names.isBlank()) {
+            sources.add(defaultSource(config, SourceType.MOVIES, "./ml_20m/movies_small.csv", 0));
+            sources.add(defaultSource(config, SourceType.LINKS, "./ml_20m/links_small.csv", 1));
+            sources.add(defaultSource(config, SourceType.RATINGS, "./ml_20m/ratings_small.csv", 2));
+            sources.add(defaultSource(config, SourceType.TAGS, "./ml_20m/tags_small.csv", 2));
+        } else {
+            for (String name : names.split(",")) {
+                if (!name.isBlank()) {
+                    sources.add(loadSource(config, name.trim()));
+                }
+            }
+        }
+        sources.sort(Comparator.comparingInt(SourceDefinition::priority));
+        return sources;
+    }
+
+    /**
+     * Returns the producer configuration for a source: the shared config plus
+     * the source's 'producer.*' overrides and topic. Only transactional sinks keep
+     * a transactional.id, and they replace it with their own.
+     */
+    public static Properties producerConfig(Properties config, SourceDefinition source) {
+        Properties sourceConfig = new Properties();
+        sourceConfig.putAll(config);
+        String prefix = SOURCE_PREFIX + source.name() + "." + PRODUCER_PREFIX;
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                sourceConfig.setProperty(key.substring(prefix.length()), config.getProperty(key));
+            }
+        }
+        if (source.topic() != null) {
+            sourceConfig.setProperty(source.type().getTopicConfigKey(), source.topic());
+        }
+        if (source.sink() != SourceDefinition.Sink.TRANSACTIONAL) {
+            sourceConfig.remove(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        }
+        return sourceConfig;
+    }
+
+    /**
+     * Returns a copy of the config without 'transactional.id', for producers that
+     * send outside transactions. A KafkaProducer with a transactional.id rejects
+     * any send made before initTransactions and beginTransaction.
+     */
+    public static Properties nonTransactional(Properties config) {
+        Properties plain = new Properties();
+        plain.putAll(config);
+        plain.remove(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        return plain;
+    }
+
+    private static SourceDefinition loadSource(Properties config, String name) {
+        String prefix = SOURCE_PREFIX + name + ".";
+        SourceType<?> type = SourceType.forName(config.getProperty(prefix + "type", name));
+        return loadSource(config, name, type, null, 0);
+    }
+
+    private static SourceDefinition defaultSource(Properties config, SourceType<?> type, String path, int priority) {
+        return loadSource(config, type.getName(), type, path, priority);
+    }
+
+    private static SourceDefinition loadSource(Properties config, String name, SourceType<?> type,
+                                               String defaultPath, int defaultPriority) {
+        String prefix = SOURCE_PREFIX + name + ".";
+        String path = config.getProperty(prefix + "path", defaultPath);
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Required config '" + prefix + "path' is not set");
+        }
+        return new SourceDefinition(name, type, path.trim(),
+            config.getProperty(prefix + "topic"),
+            sink(config, prefix, type),
+            intValue(config, prefix + "parallelism", 1),
+            intValue(config, prefix + "max.in.flight", 10_000),
+            intValue(config, prefix + "priority", defaultPriority));
+    }
+
+    private static SourceDefinition.Sink sink(Properties config, String prefix, SourceType<?> type) {
+        String sink = config.getProperty(prefix + "sink");
+        if (sink == null || sink.isBlank()) {
+            return EnvelopeEventProducer.isEnabled(config, type.getTopicConfigKey())
+                ? SourceDefinition.Sink.ENVELOPE : SourceDefinition.Sink.KAFKA;
+        }
+        return SourceDefinition.Sink.valueOf(sink.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static int intValue(Properties config, String key, int defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Config '" + key + "' is not a valid integer: " + value, e);
+        }
+    }
+}
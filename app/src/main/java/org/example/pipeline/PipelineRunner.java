@@ -0,0 +1,313 @@
+package org.example.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.example.cache.ColumnarCache;
+import org.example.checkpoint.CheckpointStore;
+import org.example.checkpoint.SourceCheckpoint;
+import org.example.model.Event;
+import org.example.producer.EnvelopeEventProducer;
+import org.example.producer.EventProducer;
+import org.example.producer.TransactionalEventProducer;
+import org.example.profile.Stage;
+import org.example.profile.StageProfiler;
+import org.example.spool.RetrySpool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the sources of a pipeline.
+ *
+ * Sources are grouped by priority. Groups run one after another, lowest
+ * priority first, and the sources within a group run concurrently. Each
+ * source is read and passed through its stages on one thread, then sent by
+ * 'parallelism' threads. Events are split between the send threads by key,
+ * so events with the same key are still sent in order. At most
+ * 'maxInFlight' events per source are unacknowledged at any time.
+ *
+ * Transactional sources are sent in file order on the reading thread,
+ * starting after their last committed checkpoint.
+ */
+public class PipelineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineRunner.class);
+
+    private final Properties config;
+    private final ColumnarCache cache;
+    private final Map<SourceType<?>, List<EventStage<?>>> stages = new ConcurrentHashMap<>();
+    private final Map<SourceType<?>, List<Consumer<List<?>>>> readListeners = new ConcurrentHashMap<>();
+    private RetrySpool retrySpool;
+    private CheckpointStore checkpointStore;
+    private volatile boolean stopped;
+
+    /**
+     * @param config shared producer configuration
+     * @param cache columnar cache for the readers, or null to disable caching
+     */
+    public PipelineRunner(Properties config, ColumnarCache cache) {
+        this.config = config;
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the spool that failed sends of all sources are written to
+     */
+    public void setRetrySpool(RetrySpool retrySpool) {
+        this.retrySpool = retrySpool;
+    }
+
+    /**
+     * Sets the store that transactional sources look up their last committed checkpoint in
+     */
+    public void setCheckpointStore(CheckpointStore checkpointStore) {
+        this.checkpointStore = checkpointStore;
+    }
+
+    /**
+     * Adds a stage applied to every event of the given type, in registration order.
+     * Stages may be added while the pipeline runs, they apply to sources started afterwards.
+     */
+    public <T extends Event> void addStage(SourceType<T> type, EventStage<T> stage) {
+        stages.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>()).add(stage);
+    }
+
+    /**
+     * Adds a listener called with all events of a source of the given type once
+     * it has been read, before any stage runs
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Event> void onEventsRead(SourceType<T> type, Consumer<List<T>> listener) {
+        readListeners.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>())
+            .add(events -> listener.accept((List<T>) events));
+    }
+
+    /**
+     * Stops the pipeline: sources that have not started sending yet, and all
+     * later priority groups, are skipped. Typically called from a read listener.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Runs all sources, returning once every event has been sent and acknowledged
+     */
+    public void run(List<SourceDefinition> sources) throws Exception {
+        List<SourceDefinition> ordered = new ArrayList<>(sources);
+        ordered.sort((a, b) -> Integer.compare(a.priority(), b.priority()));
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            int i = 0;
+            while (i < ordered.size() && !stopped) {
+                int priority = ordered.get(i).priority();
+                List<Future<?>> group = new ArrayList<>();
+                for (; i < ordered.size() && ordered.get(i).priority() == priority; i++) {
+                    SourceDefinition source = ordered.get(i);
+                    group.add(executor.submit(() -> {
+                        runSource(source, source.type(), executor);
+                        return null;
+                    }));
+                }
+                logger.info("Running {} source(s) with priority {}", group.size(), priority);
+                awaitAll(group);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T extends Event> void runSource(SourceDefinition source, SourceType<T> type,
+                                             ExecutorService executor) throws Exception {
+        StageProfiler.setSource(source.name());
+        long start = System.nanoTime();
+        long allocatedStart = StageProfiler.allocatedBytes();
+        List<T> events = type.createReader(cache).readEvents(source.path());
+        for (Consumer<List<?>> listener : readListeners.getOrDefault(type, List.of())) {
+            listener.accept(events);
+        }
+        if (stopped) {
+            logger.info("Pipeline stopped, source '{}' is not sent", source.name());
+            return;
+        }
+
+        List<EventStage<?>> sourceStages = stages.getOrDefault(type, List.of());
+        SourceCheckpoint checkpoint = source.sink() == SourceDefinition.Sink.TRANSACTIONAL
+            ? checkpointFor(source) : null;
+        EventProducer<T> producer = createProducer(source, type, checkpoint);
+        try {
+            Semaphore inFlight = new Semaphore(source.maxInFlight());
+            if (producer instanceof TransactionalEventProducer<T> transactional) {
+                sendTransactional(transactional, events, sourceStages, inFlight);
+                if (allocatedStart >= 0) {
+                    StageProfiler.addAllocated(source.name(), StageProfiler.allocatedBytes() - allocatedStart);
+                }
+            } else {
+                List<List<T>> shards = shard(events, sourceStages, source.parallelism());
+                if (allocatedStart >= 0) {
+                    StageProfiler.addAllocated(source.name(), StageProfiler.allocatedBytes() - allocatedStart);
+                }
+                List<Future<?>> senders = new ArrayList<>(shards.size());
+                for (List<T> shard : shards) {
+                    senders.add(executor.submit(() -> {
+                        StageProfiler.setSource(source.name());
+                        long senderAllocatedStart = StageProfiler.allocatedBytes();
+                        send(producer, shard, inFlight);
+                        if (senderAllocatedStart >= 0) {
+                            StageProfiler.addAllocated(source.name(), StageProfiler.allocatedBytes() - senderAllocatedStart);
+                        }
+                        return null;
+                    }));
+                }
+                awaitAll(senders);
+            }
+            producer.flush();
+        } finally {
+            producer.close();
+        }
+
+        long wallNanos = System.nanoTime() - start;
+        StageProfiler.addSource(source.name(), events.size(), wallNanos);
+        double seconds = wallNanos / 1e9;
+        logger.info("Source '{}' finished: {} events read in {} s", source.name(), events.size(),
+            String.format("%.2f", seconds));
+    }
+
+    /**
+     * Applies the stages to the events and splits the remaining ones between the send threads
+     */
+    private static <T extends Event> List<List<T>> shard(List<T> events, List<EventStage<?>> stages,
+                                                         int parallelism) throws Exception {
+        List<List<T>> shards = new ArrayList<>(parallelism);
+        for (int s = 0; s < parallelism; s++) {
+            shards.add(new ArrayList<>(events.size() / parallelism + 1));
+        }
+        int unkeyed = 0;
+        for (T event : events) {
+            if (!applyStages(stages, event)) {
+                continue;
+            }
+            String key = event.getKey();
+            int shard = key == null ? unkeyed++ % shards.size() : Math.floorMod(key.hashCode(), shards.size());
+            shards.get(shard).add(event);
+        }
+        return shards;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T extends Event> boolean applyStages(List<EventStage<?>> stages, T event) throws Exception {
+        for (EventStage stage : stages) {
+            if (!stage.apply(event)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T extends Event> void send(EventProducer<T> producer, List<T> events,
+                                               Semaphore inFlight) throws Exception {
+        for (T event : events) {
+            long waitStart = StageProfiler.start();
+            inFlight.acquire();
+            StageProfiler.end(Stage.QUEUE_WAIT, waitStart);
+            try {
+                producer.sendEvent(event, inFlight::release);
+            } catch (Exception e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Sends the events after the committed checkpoint in file order, on the
+     * calling thread. Events dropped by a stage still advance the offset.
+     */
+    private static <T extends Event> void sendTransactional(TransactionalEventProducer<T> producer, List<T> events,
+                                                            List<EventStage<?>> stages,
+                                                            Semaphore inFlight) throws Exception {
+        for (int offset = (int) Math.min(producer.getCommitted().offset(), events.size());
+             offset < events.size(); offset++) {
+            T event = events.get(offset);
+            if (!applyStages(stages, event)) {
+                continue;
+            }
+            long waitStart = StageProfiler.start();
+            inFlight.acquire();
+            StageProfiler.end(Stage.QUEUE_WAIT, waitStart);
+            try {
+                producer.sendEvent(event, offset, inFlight::release);
+            } catch (Exception e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+        producer.commit(events.size());
+    }
+
+    /**
+     * Returns the committed checkpoint of a transactional source, or a
+     * checkpoint at offset 0 if there is none for the current file
+     */
+    private SourceCheckpoint checkpointFor(SourceDefinition source) throws IOException {
+        if (checkpointStore == null) {
+            throw new IllegalStateException("Source '" + source.name() + "' is transactional but no checkpoint store is set");
+        }
+        SourceCheckpoint start = SourceCheckpoint.start(source.name(), Path.of(source.path()));
+        Optional<SourceCheckpoint> committed = checkpointStore.load(source.name());
+        if (committed.isEmpty()) {
+            return start;
+        }
+        if (!committed.get().sameFile(start)) {
+            logger.warn("Source '{}' changed since its last checkpoint, sending it from the beginning", source.name());
+            return start;
+        }
+        logger.info("Resuming source '{}' after {} committed events", source.name(), committed.get().offset());
+        return committed.get();
+    }
+
+    /**
+     * Creates the producer for a source's sink; tests override it to avoid a broker
+     */
+    <T extends Event> EventProducer<T> createProducer(SourceDefinition source, SourceType<T> type,
+                                                      SourceCheckpoint checkpoint) {
+        Properties sourceConfig = PipelineConfig.producerConfig(config, source);
+        EventProducer<T> producer = switch (source.sink()) {
+            case ENVELOPE -> new EnvelopeEventProducer<>(sourceConfig, type.getTopicConfigKey());
+            case TRANSACTIONAL -> new TransactionalEventProducer<>(sourceConfig, type.getTopicConfigKey(), checkpoint);
+            case KAFKA -> type.createProducer(sourceConfig);
+        };
+        producer.setRetrySpool(retrySpool);
+        return producer;
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws Exception {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.pipeline;
+
+/**
+ * One source of a pipeline: a CSV file, how to read it and where to send it
+ *
+ * @param name unique name of the source, used in config keys and logs
+ * @param type the kind of events the file holds
+ * @param path path of the CSV file
+ * @param topic topic name, or null to use the type's topic config key
+ * @param sink how events are sent
+ * @param parallelism number of threads sending events
+ * @param maxInFlight maximum number of sent but unacknowledged events
+ * @param priority sources with a lower priority finish before the next priority starts
+ */
+public record SourceDefinition(String name, SourceType<?> type, String path, String topic, Sink sink,
+                               int parallelism, int maxInFlight, int priority) {
+
+    /**
+     * How a source's events are sent
+     */
+    public enum Sink {
+        /** One Kafka record per event */
+        KAFKA,
+        /** Many events per Kafka record, see EnvelopeEventProducer */
+        ENVELOPE,
+        /** One Kafka record per event, committed exactly once in chunks, see TransactionalEventProducer */
+        TRANSACTIONAL
+    }
+
+    public SourceDefinition {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Source '" + name + "': parallelism must be at least 1");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Source '" + name + "': max.in.flight must be at least 1");
+        }
+        if (sink == Sink.TRANSACTIONAL && parallelism != 1) {
+            throw new IllegalArgumentException("Source '" + name + "': a transactional sink requires parallelism 1");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.pipeline;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Function;
+
+import org.example.cache.ColumnarCache;
+import org.example.csv.AbstractCSVReader;
+import org.example.csv.LinkReader;
+import org.example.csv.MovieReader;
+import org.example.csv.RatingReader;
+import org.example.csv.TagReader;
+import org.example.model.Event;
+import org.example.model.LinkEvent;
+import org.example.model.MovieEvent;
+import org.example.model.RatingEvent;
+import org.example.model.TagEvent;
+import org.example.producer.EventProducer;
+import org.example.producer.LinkEventProducer;
+import org.example.producer.MovieEventProducer;
+import org.example.producer.RatingEventProducer;
+import org.example.producer.TagEventProducer;
+
+/**
+ * The kinds of source a pipeline can read, each with its reader and producer
+ */
+public final class SourceType<T extends Event> {
+
+    public static final SourceType<MovieEvent> MOVIES =
+        new SourceType<>("movies", "topic.movies", MovieReader::new, MovieEventProducer::new);
+    public static final SourceType<RatingEvent> RATINGS =
+        new SourceType<>("ratings", "topic.ratings", RatingReader::new, RatingEventProducer::new);
+    public static final SourceType<TagEvent> TAGS =
+        new SourceType<>("tags", "topic.tags", TagReader::new, TagEventProducer::new);
+    public static final SourceType<LinkEvent> LINKS =
+        new SourceType<>("links", "topic.links", LinkReader::new, LinkEventProducer::new);
+
+    private static final List<SourceType<?>> VALUES = List.of(MOVIES, RATINGS, TAGS, LINKS);
+
+    private final String name;
+    private final String topicConfigKey;
+    private final Function<ColumnarCache, AbstractCSVReader<T>> readerFactory;
+    private final Function<Properties, EventProducer<T>> producerFactory;
+
+    private SourceType(String name, String topicConfigKey,
+                       Function<ColumnarCache, AbstractCSVReader<T>> readerFactory,
+                       Function<Properties, EventProducer<T>> producerFactory) {
+        this.name = name;
+        this.topicConfigKey = topicConfigKey;
+        this.readerFactory = readerFactory;
+        this.producerFactory = producerFactory;
+    }
+
+    /**
+     * Looks up a source type by name, e.g. "ratings"
+     */
+    public static SourceType<?> forName(String name) {
+        for (SourceType<?> type : VALUES) {
+            if (type.name.equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown source type: " + name);
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * Returns the config key holding the topic name, e.g. "topic.ratings"
+     */
+    public String getTopicConfigKey() { return topicConfigKey; }
+
+    AbstractCSVReader<T> createReader(ColumnarCache cache) {
+        return readerFactory.apply(cache);
+    }
+
+    EventProducer<T> createProducer(Properties config) {
+        return producerFactory.apply(config);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
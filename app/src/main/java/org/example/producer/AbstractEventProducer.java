@@ -1,29 +1,87 @@
 package org.example.producer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.example.model.Event;
+import org.example.profile.Stage;
+import org.example.profile.StageProfiler;
+import org.example.serializer.JsonSerializer;
+import org.example.spool.RetrySpool;
+import org.example.spool.SpooledRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Abstract base class for Kafka event producers
  * Contains all common producer logic
+ *
+ * A producer may run a pool of underlying Kafka producers so that sends are
+ * spread across several sender I/O threads. Events are routed by the target
+ * partition of their key, so all events for one key go through the same
+ * instance and keep their order.
  */
-public abstract class AbstractEventProducer<T extends Event> {
+public abstract class AbstractEventProducer<T extends Event> implements EventProducer<T> {
+
+    /** Default pool size, used when no topic specific size is configured */
+    public static final String POOL_SIZE_CONFIG = "producer.pool.size";
+    /** Suffix for a topic specific pool size, e.g. 'topic.ratings.pool.size' */
+    public static final String POOL_SIZE_SUFFIX = ".pool.size";
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final String topicName;
-    private final KafkaProducer<String, T> kafkaProducer;
+    private final List<Producer<String, T>> producers;
+    private final AtomicLongArray sentCounts;
+    private final AtomicLongArray failedCounts;
+    private final AtomicInteger nextUnkeyed = new AtomicInteger();
+    private volatile int partitionCount = -1;
+    private volatile RetrySpool retrySpool;
+    private final Serializer<String> keySerializer;
+    private final Serializer<T> valueSerializer;
+
+    /**
+     * Constructor for use with existing Producer instance
+     */
+    public AbstractEventProducer(Producer<String, T> kafkaProducer, String topicName) {
+        this(List.of(kafkaProducer), topicName);
+    }
 
     /**
-     * Constructor for use with existing KafkaProducer instance
+     * Constructor for use with an existing pool of Producer instances
      */
-    public AbstractEventProducer(KafkaProducer<String, T> kafkaProducer, String topicName) {
-        this.kafkaProducer = kafkaProducer;
+    public AbstractEventProducer(List<? extends Producer<String, T>> producers, String topicName) {
+        this(producers, topicName, new StringSerializer(), new JsonSerializer<>());
+    }
+
+    /**
+     * Constructor for use with an existing pool of Producer instances
+     * @param keySerializer key serializer the producers use, failed events are spooled with it
+     * @param valueSerializer value serializer the producers use, failed events are spooled with it
+     */
+    public AbstractEventProducer(List<? extends Producer<String, T>> producers, String topicName,
+                                 Serializer<String> keySerializer, Serializer<T> valueSerializer) {
+        if (producers == null || producers.isEmpty()) {
+            throw new IllegalArgumentException("producers must not be null or empty");
+        }
+        this.producers = List.copyOf(producers);
         this.topicName = topicName;
+        this.sentCounts = new AtomicLongArray(this.producers.size());
+        this.failedCounts = new AtomicLongArray(this.producers.size());
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
     }
 
     /**
@@ -32,40 +90,232 @@ public abstract class AbstractEventProducer<T extends Event> {
      * @param topicConfigKey the property key for the topic name
      */
     public AbstractEventProducer(Properties config, String topicConfigKey) {
+        this(config, topicConfigKey,
+             AbstractEventProducer.<String>configuredSerializer(config, ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, true),
+             AbstractEventProducer.<T>configuredSerializer(config, ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, false));
+    }
+
+    private AbstractEventProducer(Properties config, String topicConfigKey,
+                                  Serializer<String> keySerializer, Serializer<T> valueSerializer) {
+        this(createProducers(config, topicConfigKey, keySerializer, valueSerializer),
+             requireTopic(config, topicConfigKey), keySerializer, valueSerializer);
+    }
+
+    /**
+     * Sends an event to Kafka
+     */
+    @Override
+    public void sendEvent(T event, Runnable onComplete) throws Exception {
+        int instance = instanceFor(event.getKey());
+        ProducerRecord<String, T> record = new ProducerRecord<>(topicName, event.getKey(), event);
+        // KafkaProducer.send serializes on this thread, the enclosing span leaves that to SERIALIZE
+        long start = StageProfiler.startEnclosing();
+        String source = start == 0L ? null : StageProfiler.currentSource();
+
+        try {
+            producers.get(instance).send(record, (metadata, exception) -> {
+                StageProfiler.end(source, Stage.ACK, start);
+                if (exception != null) {
+                    failedCounts.incrementAndGet(instance);
+                    logger.error("Failed to send event: {}", event.getKey(), exception);
+                    spool(event);
+                } else {
+                    sentCounts.incrementAndGet(instance);
+                    logger.debug("Sent event {} to partition {} with offset {}",
+                        event.getKey(), metadata.partition(), metadata.offset());
+                }
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            });
+        } finally {
+            StageProfiler.endEnclosing(Stage.ENQUEUE, start);
+        }
+    }
+
+    @Override
+    public void setRetrySpool(RetrySpool retrySpool) {
+        this.retrySpool = retrySpool;
+    }
+
+    /**
+     * Flushes all pooled producers, blocking until buffered events are sent
+     */
+    @Override
+    public void flush() {
+        for (Producer<String, T> producer : producers) {
+            producer.flush();
+        }
+    }
+
+    /**
+     * Returns the Kafka client metrics of each pooled producer, in pool order
+     */
+    public List<Map<MetricName, ? extends Metric>> metrics() {
+        List<Map<MetricName, ? extends Metric>> metrics = new ArrayList<>(producers.size());
+        for (Producer<String, T> producer : producers) {
+            metrics.add(producer.metrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the number of pooled producers
+     */
+    public int getPoolSize() {
+        return producers.size();
+    }
+
+    /**
+     * Returns the number of events acknowledged through a pooled producer
+     */
+    public long getSentCount(int instance) {
+        return sentCounts.get(instance);
+    }
+
+    /**
+     * Returns the number of events that failed through a pooled producer
+     */
+    public long getFailedCount(int instance) {
+        return failedCounts.get(instance);
+    }
+
+    protected String getTopicName() {
+        return topicName;
+    }
+
+    /**
+     * Closes the Kafka producers and releases resources
+     */
+    @Override
+    public void close() {
+        logger.info("Closing {} Kafka producer(s) for topic {}", producers.size(), topicName);
+        for (int i = 0; i < producers.size(); i++) {
+            try (Producer<String, T> producer = producers.get(i)) {
+                producer.flush();
+            } catch (Exception e) {
+                logger.error("Failed to close Kafka producer {}", i, e);
+            }
+            logger.info("Producer {}: {} events sent, {} failed", i, sentCounts.get(i), failedCounts.get(i));
+        }
+    }
+
+    /**
+     * Writes a failed event to the retry spool, if one is set
+     */
+    private void spool(T event) {
+        RetrySpool spool = retrySpool;
+        if (spool == null) {
+            return;
+        }
+        try {
+            // Same serializers as the producers, so the spooled bytes match what was sent
+            spool.append(new SpooledRecord(topicName, null, keySerializer.serialize(topicName, event.getKey()),
+                valueSerializer.serialize(topicName, event), List.of(), System.currentTimeMillis(), 1));
+        } catch (Exception e) {
+            logger.error("Failed to spool event {}, event is lost", event.getKey(), e);
+        }
+    }
+
+    /**
+     * Picks the pooled producer for a key. Keys are hashed the same way as
+     * Kafka's default partitioner, so one partition is always fed by one instance.
+     */
+    private int instanceFor(String key) {
+        int poolSize = producers.size();
+        if (poolSize == 1) {
+            return 0;
+        }
+        if (key == null) {
+            return Math.floorMod(nextUnkeyed.getAndIncrement(), poolSize);
+        }
+        return KeyPartitioner.partition(key, partitionCount()) % poolSize;
+    }
+
+    private int partitionCount() {
+        int count = partitionCount;
+        if (count < 0) {
+            count = Math.max(1, producers.get(0).partitionsFor(topicName).size());
+            partitionCount = count;
+        }
+        return count;
+    }
+
+    static String requireTopic(Properties config, String topicConfigKey) {
         if (topicConfigKey == null || topicConfigKey.isBlank()) {
             throw new IllegalArgumentException("topicConfigKey must not be null or blank");
         }
-        this.topicName = config.getProperty(topicConfigKey);
-        if (this.topicName == null || this.topicName.isBlank()) {
+        String topicName = config.getProperty(topicConfigKey);
+        if (topicName == null || topicName.isBlank()) {
             throw new IllegalArgumentException("Required config '" + topicConfigKey + "' is not set");
         }
-        this.kafkaProducer = new KafkaProducer<>(config);
+        return topicName;
     }
 
-    /**
-     * Sends an event to Kafka
-     */
-    public void sendEvent(T event) throws Exception {
-        ProducerRecord<String, T> record = new ProducerRecord<>(topicName, event.getKey(), event);
+    private static <T> List<Producer<String, T>> createProducers(Properties config, String topicConfigKey,
+                                                                 Serializer<String> keySerializer,
+                                                                 Serializer<T> valueSerializer) {
+        requireTopic(config, topicConfigKey);
+        int poolSize = poolSize(config, topicConfigKey);
+        String clientId = config.getProperty(ProducerConfig.CLIENT_ID_CONFIG);
 
-        kafkaProducer.send(record, (metadata, exception) -> {
-            if (exception != null) {
-                logger.error("Failed to send event: {}", event.getKey(), exception);
-            } else {
-                logger.info("Sent event {} to partition {} with offset {}",
-                    event.getKey(), metadata.partition(), metadata.offset());
+        List<Producer<String, T>> producers = new ArrayList<>(poolSize);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                Properties instanceConfig = config;
+                if (poolSize > 1 && clientId != null && !clientId.isBlank()) {
+                    instanceConfig = new Properties();
+                    instanceConfig.putAll(config);
+                    instanceConfig.setProperty(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-" + i);
+                }
+                producers.add(new KafkaProducer<>(instanceConfig, keySerializer, valueSerializer));
             }
-        });
+        } catch (RuntimeException e) {
+            // Release the sender threads of the instances already created
+            for (Producer<String, T> producer : producers) {
+                try {
+                    producer.close();
+                } catch (RuntimeException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            throw e;
+        }
+        return producers;
     }
 
     /**
-     * Closes the Kafka producer and releases resources
+     * Creates and configures the serializer named by a 'key.serializer' or
+     * 'value.serializer' setting, as KafkaProducer would
      */
-    public void close() {
-        if (kafkaProducer != null) {
-            try (kafkaProducer) {
-                logger.info("Closing Kafka producer");
+    @SuppressWarnings("unchecked")
+    private static <S> Serializer<S> configuredSerializer(Properties config, String configKey, boolean isKey) {
+        Object value = config.get(configKey);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("Required config '" + configKey + "' is not set");
+        }
+        try {
+            Class<?> type = value instanceof Class<?> c ? c : Class.forName(value.toString().trim());
+            Serializer<S> serializer = (Serializer<S>) type.getDeclaredConstructor().newInstance();
+            Map<String, Object> configs = new HashMap<>();
+            config.forEach((k, v) -> configs.put(k.toString(), v));
+            serializer.configure(configs, isKey);
+            return serializer;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Config '" + configKey + "' is not a valid serializer: " + value, e);
+        }
+    }
+
+    private static int poolSize(Properties config, String topicConfigKey) {
+        String value = config.getProperty(topicConfigKey + POOL_SIZE_SUFFIX, config.getProperty(POOL_SIZE_CONFIG, "1"));
+        try {
+            int poolSize = Integer.parseInt(value.trim());
+            if (poolSize < 1) {
+                throw new IllegalArgumentException("Pool size must be at least 1: " + value);
             }
+            return poolSize;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Pool size is not a valid integer: " + value, e);
         }
     }
 }
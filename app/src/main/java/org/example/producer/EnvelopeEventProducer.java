@@ -0,0 +1,284 @@
+package org.example.producer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.model.Event;
+import org.example.profile.Stage;
+import org.example.profile.StageProfiler;
+import org.example.serializer.EnvelopeCodec;
+import org.example.serializer.JsonSerializer;
+import org.example.spool.RetrySpool;
+import org.example.spool.SpooledRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Kafka producer that packs many events into one record.
+ *
+ * Events are buffered per target partition (or per key) and sent as an
+ * envelope once the buffer reaches the configured event count or byte size,
+ * or has been open for the linger time. Events for one key always land in
+ * the same buffer, so their order is kept. Consumers unpack records with
+ * {@link EnvelopeCodec#decode(byte[])}.
+ */
+public class EnvelopeEventProducer<T extends Event> implements EventProducer<T> {
+
+    /** Suffixes of the per topic envelope settings, e.g. 'topic.ratings.envelope.enabled' */
+    public static final String ENABLED_SUFFIX = ".envelope.enabled";
+    public static final String MAX_EVENTS_SUFFIX = ".envelope.max.events";
+    public static final String MAX_BYTES_SUFFIX = ".envelope.max.bytes";
+    public static final String LINGER_MS_SUFFIX = ".envelope.linger.ms";
+    public static final String GROUPING_SUFFIX = ".envelope.grouping";
+
+    private static final long CLOSE_TIMEOUT_MS = 60_000;
+
+    /**
+     * How events are grouped into envelopes
+     */
+    public enum Grouping {
+        /** One envelope per target partition, sent to that partition without a key */
+        PARTITION,
+        /** One envelope per event key, sent with that key */
+        KEY
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Producer<String, byte[]> producer;
+    private final Serializer<T> serializer;
+    private final String topicName;
+    private final Grouping grouping;
+    private final int maxEvents;
+    private final int maxBytes;
+    private final long lingerMs;
+    private final Map<Object, Batch> batches = new HashMap<>();
+    private final ScheduledExecutorService lingerTimer;
+    private int partitionCount = -1;
+    private volatile RetrySpool retrySpool;
+    private long envelopeCount;
+    private long eventCount;
+
+    /**
+     * Constructor for use with an existing Producer instance
+     */
+    public EnvelopeEventProducer(Producer<String, byte[]> producer, Serializer<T> serializer, String topicName,
+                                 Grouping grouping, int maxEvents, int maxBytes, long lingerMs) {
+        if (maxEvents < 1 || maxBytes < 1 || lingerMs < 1) {
+            throw new IllegalArgumentException("Envelope limits must be positive");
+        }
+        this.producer = producer;
+        this.serializer = serializer;
+        this.topicName = topicName;
+        this.grouping = grouping;
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+        this.lingerMs = lingerMs;
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "envelope-linger-" + topicName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lingerTimer.scheduleWithFixedDelay(this::sendExpired, lingerMs, lingerMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor for use with config properties
+     * @param config Kafka producer configuration
+     * @param topicConfigKey the property key for the topic name
+     */
+    public EnvelopeEventProducer(Properties config, String topicConfigKey) {
+        this(new KafkaProducer<>(config, new StringSerializer(), new ByteArraySerializer()),
+             new JsonSerializer<>(),
+             AbstractEventProducer.requireTopic(config, topicConfigKey),
+             Grouping.valueOf(config.getProperty(topicConfigKey + GROUPING_SUFFIX, "partition").trim().toUpperCase(Locale.ROOT)),
+             Integer.parseInt(config.getProperty(topicConfigKey + MAX_EVENTS_SUFFIX, "500").trim()),
+             Integer.parseInt(config.getProperty(topicConfigKey + MAX_BYTES_SUFFIX, "262144").trim()),
+             Long.parseLong(config.getProperty(topicConfigKey + LINGER_MS_SUFFIX, "100").trim()));
+    }
+
+    /**
+     * Returns true if envelope mode is enabled for a topic
+     */
+    public static boolean isEnabled(Properties config, String topicConfigKey) {
+        return Boolean.parseBoolean(config.getProperty(topicConfigKey + ENABLED_SUFFIX, "false"));
+    }
+
+    /**
+     * Adds an event to its envelope, sending the envelope if it is full
+     */
+    @Override
+    public synchronized void sendEvent(T event, Runnable onComplete) throws Exception {
+        byte[] value = serializer.serialize(topicName, event);
+        Object batchKey = batchKeyFor(event.getKey());
+        Batch batch = batches.get(batchKey);
+        if (batch != null && batch.size + EnvelopeCodec.ENTRY_OVERHEAD + value.length > maxBytes) {
+            send(batchKey, batches.remove(batchKey));
+            batch = null;
+        }
+        if (batch == null) {
+            batch = new Batch(System.currentTimeMillis());
+            batches.put(batchKey, batch);
+        }
+        batch.add(value, onComplete);
+        if (batch.events.size() >= maxEvents || batch.size >= maxBytes) {
+            send(batchKey, batches.remove(batchKey));
+        }
+    }
+
+    @Override
+    public void setRetrySpool(RetrySpool retrySpool) {
+        this.retrySpool = retrySpool;
+    }
+
+    /**
+     * Sends all open envelopes and blocks until they are acknowledged
+     */
+    @Override
+    public void flush() {
+        synchronized (this) {
+            sendAll();
+        }
+        producer.flush();
+    }
+
+    public synchronized long getEnvelopeCount() { return envelopeCount; }
+
+    public synchronized long getEventCount() { return eventCount; }
+
+    /**
+     * Sends all open envelopes, then closes the Kafka producer
+     */
+    @Override
+    public void close() {
+        // Let a running linger send finish, interrupting it would fail the send
+        lingerTimer.shutdown();
+        try {
+            if (!lingerTimer.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.warn("Envelope linger timer for topic {} did not stop within {} ms", topicName, CLOSE_TIMEOUT_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            sendAll();
+            logger.info("Closing envelope producer for topic {}: {} events in {} envelopes",
+                topicName, eventCount, envelopeCount);
+        }
+        producer.close();
+    }
+
+    private Object batchKeyFor(String key) {
+        if (grouping == Grouping.KEY || key == null) {
+            return key == null ? "" : key;
+        }
+        if (partitionCount < 0) {
+            partitionCount = Math.max(1, producer.partitionsFor(topicName).size());
+        }
+        return KeyPartitioner.partition(key, partitionCount);
+    }
+
+    private synchronized void sendExpired() {
+        long cutoff = System.currentTimeMillis() - lingerMs;
+        Iterator<Map.Entry<Object, Batch>> it = batches.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Object, Batch> entry = it.next();
+            if (entry.getValue().createdMs <= cutoff) {
+                it.remove();
+                send(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void sendAll() {
+        batches.forEach(this::send);
+        batches.clear();
+    }
+
+    private void send(Object batchKey, Batch batch) {
+        int count = batch.events.size();
+        byte[] envelope = EnvelopeCodec.encode(batch.events);
+        Integer partition = batchKey instanceof Integer p ? p : null;
+        String key = batchKey instanceof String k && !k.isEmpty() ? k : null;
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topicName, partition, null, key, envelope,
+            List.of(new RecordHeader(EnvelopeCodec.HEADER, Integer.toString(count).getBytes(StandardCharsets.UTF_8))));
+
+        List<Runnable> callbacks = batch.callbacks;
+        long start = StageProfiler.start();
+        String source = start == 0L ? null : StageProfiler.currentSource();
+        try {
+            producer.send(record, (metadata, exception) -> {
+                StageProfiler.end(source, Stage.ACK, start);
+                if (exception != null) {
+                    logger.error("Failed to send envelope of {} events for {}", count, batchKey, exception);
+                    spool(record);
+                } else {
+                    logger.debug("Sent envelope of {} events to partition {} with offset {}",
+                        count, metadata.partition(), metadata.offset());
+                }
+                callbacks.forEach(Runnable::run);
+            });
+        } catch (RuntimeException e) {
+            // The batch is already removed, and an exception would cancel the linger timer
+            logger.error("Failed to send envelope of {} events for {}", count, batchKey, e);
+            spool(record);
+            callbacks.forEach(Runnable::run);
+            return;
+        } finally {
+            StageProfiler.end(Stage.ENQUEUE, start);
+        }
+        envelopeCount++;
+        eventCount += count;
+    }
+
+    /**
+     * Writes a failed envelope to the retry spool, if one is set
+     */
+    private void spool(ProducerRecord<String, byte[]> record) {
+        RetrySpool spool = retrySpool;
+        if (spool == null) {
+            return;
+        }
+        try {
+            byte[] key = record.key() == null ? null : record.key().getBytes(StandardCharsets.UTF_8);
+            spool.append(new SpooledRecord(record.topic(), record.partition(), key, record.value(),
+                List.of(record.headers().toArray()), System.currentTimeMillis(), 1));
+        } catch (Exception e) {
+            logger.error("Failed to spool envelope for topic {}, envelope is lost", record.topic(), e);
+        }
+    }
+
+    private static final class Batch {
+        private final long createdMs;
+        private final List<byte[]> events = new ArrayList<>();
+        private final List<Runnable> callbacks = new ArrayList<>();
+        private int size = EnvelopeCodec.HEADER_SIZE;
+
+        private Batch(long createdMs) {
+            this.createdMs = createdMs;
+        }
+
+        private void add(byte[] event, Runnable onComplete) {
+            events.add(event);
+            if (onComplete != null) {
+                callbacks.add(onComplete);
+            }
+            size += EnvelopeCodec.ENTRY_OVERHEAD + event.length;
+        }
+    }
+}
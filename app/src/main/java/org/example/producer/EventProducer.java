@@ -1,16 +1,42 @@
 package org.example.producer;
 
-import org.example.model.MovieEvent;
+import org.example.model.Event;
+import org.example.spool.RetrySpool;
 
 /**
- * Interface for producing movie events to Kafka
+ * Interface for producing events to Kafka
  */
-public interface EventProducer {
+public interface EventProducer<T extends Event> {
 
     /**
-     * Sends a movie event to Kafka
+     * Sends an event to Kafka
      * @param event
      * @throws Exception
      */
-    void sendEvent(MovieEvent event) throws Exception;
+    default void sendEvent(T event) throws Exception {
+        sendEvent(event, null);
+    }
+
+    /**
+     * Sends an event to Kafka
+     * @param event
+     * @param onComplete run once the send has succeeded or failed, may be null
+     * @throws Exception
+     */
+    void sendEvent(T event, Runnable onComplete) throws Exception;
+
+    /**
+     * Sets the spool that events whose send failed are written to, null to drop them
+     */
+    void setRetrySpool(RetrySpool retrySpool);
+
+    /**
+     * Sends any buffered events, blocking until they are acknowledged
+     */
+    void flush();
+
+    /**
+     * Closes the producer and releases resources
+     */
+    void close();
 }
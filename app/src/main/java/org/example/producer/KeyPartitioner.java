@@ -0,0 +1,18 @@
+package org.example.producer;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * Computes the partition Kafka's default partitioner picks for a String key
+ */
+final class KeyPartitioner {
+
+    private KeyPartitioner() {
+    }
+
+    static int partition(String key, int numPartitions) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % numPartitions;
+    }
+}
@@ -2,12 +2,12 @@ package org.example.producer;
 
 import java.util.Properties;
 
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.example.model.LinkEvent;
 
 
 public class LinkEventProducer extends AbstractEventProducer<LinkEvent> {
-    public LinkEventProducer(KafkaProducer<String, LinkEvent> kafkaProducer, String topicName) {
+    public LinkEventProducer(Producer<String, LinkEvent> kafkaProducer, String topicName) {
         super(kafkaProducer, topicName);
     }
 
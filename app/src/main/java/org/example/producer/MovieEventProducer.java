@@ -2,7 +2,7 @@ package org.example.producer;
 
 import java.util.Properties;
 
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.example.model.MovieEvent;
 
 /**
@@ -10,7 +10,7 @@ import org.example.model.MovieEvent;
  */
 public class MovieEventProducer extends AbstractEventProducer<MovieEvent> {
 
-    public MovieEventProducer(KafkaProducer<String, MovieEvent> kafkaProducer, String topicName) {
+    public MovieEventProducer(Producer<String, MovieEvent> kafkaProducer, String topicName) {
         super(kafkaProducer, topicName);
     }
 
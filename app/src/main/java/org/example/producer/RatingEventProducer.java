@@ -2,7 +2,7 @@ package org.example.producer;
 
 import java.util.Properties;
 
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.example.model.RatingEvent;
 
 /**
@@ -10,7 +10,7 @@ import org.example.model.RatingEvent;
  */
 public class RatingEventProducer extends AbstractEventProducer<RatingEvent> {
 
-    public RatingEventProducer(KafkaProducer<String, RatingEvent> kafkaProducer, String topicName) {
+    public RatingEventProducer(Producer<String, RatingEvent> kafkaProducer, String topicName) {
         super(kafkaProducer, topicName);
     }
 
@@ -2,7 +2,7 @@ package org.example.producer;
 
 import java.util.Properties;
 
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.example.model.TagEvent;
 
 /**
@@ -10,7 +10,7 @@ import org.example.model.TagEvent;
  */
 public class TagEventProducer extends AbstractEventProducer<TagEvent> {
 
-    public TagEventProducer(KafkaProducer<String, TagEvent> kafkaProducer, String topicName) {
+    public TagEventProducer(Producer<String, TagEvent> kafkaProducer, String topicName) {
         super(kafkaProducer, topicName);
     }
 
@@ -0,0 +1,298 @@
+package org.example.producer;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.OutOfOrderSequenceException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.checkpoint.SourceCheckpoint;
+import org.example.model.Event;
+import org.example.profile.Stage;
+import org.example.profile.StageProfiler;
+import org.example.serializer.JsonSerializer;
+import org.example.spool.RetrySpool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Kafka producer that sends the events of one source file exactly once.
+ *
+ * Events are sent with an idempotent, transactional producer and committed
+ * in chunks of the configured number of records, so the cost of a commit is
+ * spread over the whole chunk. Each transaction also writes a checkpoint
+ * record to the checkpoint topic holding the source offset, the number of
+ * leading events of the file, that the chunk completes. A checkpoint is
+ * therefore visible to read_committed consumers exactly when its events are,
+ * and a re-run resumes after the last committed chunk.
+ *
+ * A chunk whose send or commit fails is aborted rather than spooled; running
+ * the source again sends it anew.
+ */
+public class TransactionalEventProducer<T extends Event> implements EventProducer<T> {
+
+    /** Topic the checkpoint records are written to, should be compacted */
+    public static final String CHECKPOINT_TOPIC_CONFIG = "topic.checkpoints";
+    /** Prefix of the transactional.id, the source name is appended to it */
+    public static final String TRANSACTIONAL_ID_PREFIX_CONFIG = "transactional.id.prefix";
+    /** Suffix of the per topic chunk size, e.g. 'topic.ratings.transaction.chunk.records' */
+    public static final String CHUNK_RECORDS_SUFFIX = ".transaction.chunk.records";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Producer<String, byte[]> producer;
+    private final Serializer<T> serializer;
+    private final String topicName;
+    private final String checkpointTopic;
+    private final int chunkRecords;
+    private SourceCheckpoint committed;
+    private long nextOffset;
+    private int chunkCount;
+    private boolean inTransaction;
+    private boolean closed;
+    private volatile Exception sendError;
+    private long commitCount;
+    private long commitNanos;
+    private long eventCount;
+
+    /**
+     * Constructor for use with an existing Producer instance, which must have a transactional.id
+     * @param checkpoint the last committed checkpoint of the source, sending continues at its offset
+     */
+    public TransactionalEventProducer(Producer<String, byte[]> producer, Serializer<T> serializer, String topicName,
+                                      String checkpointTopic, int chunkRecords, SourceCheckpoint checkpoint) {
+        if (chunkRecords < 1) {
+            throw new IllegalArgumentException("Transaction chunk size must be positive");
+        }
+        this.producer = producer;
+        this.serializer = serializer;
+        this.topicName = topicName;
+        this.checkpointTopic = checkpointTopic;
+        this.chunkRecords = chunkRecords;
+        this.committed = checkpoint;
+        this.nextOffset = checkpoint.offset();
+        producer.initTransactions();
+    }
+
+    /**
+     * Constructor for use with config properties
+     * @param config Kafka producer configuration
+     * @param topicConfigKey the property key for the topic name
+     * @param checkpoint the last committed checkpoint of the source, sending continues at its offset
+     */
+    public TransactionalEventProducer(Properties config, String topicConfigKey, SourceCheckpoint checkpoint) {
+        this(new KafkaProducer<>(transactionalConfig(config, checkpoint.source()),
+                 new StringSerializer(), new ByteArraySerializer()),
+             new JsonSerializer<>(),
+             AbstractEventProducer.requireTopic(config, topicConfigKey),
+             AbstractEventProducer.requireTopic(config, CHECKPOINT_TOPIC_CONFIG),
+             Integer.parseInt(config.getProperty(topicConfigKey + CHUNK_RECORDS_SUFFIX, "50000").trim()),
+             checkpoint);
+    }
+
+    /**
+     * Returns the producer configuration with idempotence enabled and the
+     * transactional.id '&lt;prefix&gt;-&lt;source&gt;', stable across runs of the same
+     * source. A configured transactional.id is ignored: shared by several
+     * sources, which run concurrently, it would make them fence each other.
+     */
+    static Properties transactionalConfig(Properties config, String source) {
+        Properties transactional = new Properties();
+        transactional.putAll(config);
+        transactional.setProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        transactional.setProperty(ProducerConfig.ACKS_CONFIG, "all");
+        String prefix = config.getProperty(TRANSACTIONAL_ID_PREFIX_CONFIG, "movie-pipeline");
+        String transactionalId = prefix.trim() + "-" + source;
+        String configured = config.getProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        if (configured != null && !configured.equals(transactionalId)) {
+            LoggerFactory.getLogger(TransactionalEventProducer.class).warn(
+                "Ignoring transactional.id '{}' for source '{}', using '{}'. Set {} to change it",
+                configured, source, transactionalId, TRANSACTIONAL_ID_PREFIX_CONFIG);
+        }
+        transactional.setProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+        return transactional;
+    }
+
+    /**
+     * Sends the event following the previously sent one in the source file
+     */
+    @Override
+    public void sendEvent(T event, Runnable onComplete) throws Exception {
+        sendEvent(event, nextOffset, onComplete);
+    }
+
+    /**
+     * Sends an event, committing the open chunk once it is full
+     * @param offset position of the event in the source file, counting from 0
+     */
+    public synchronized void sendEvent(T event, long offset, Runnable onComplete) throws Exception {
+        if (offset < nextOffset) {
+            throw new IllegalArgumentException("Offset " + offset + " is before the next offset " + nextOffset);
+        }
+        beginIfNeeded();
+        ProducerRecord<String, byte[]> record =
+            new ProducerRecord<>(topicName, event.getKey(), serializer.serialize(topicName, event));
+        long start = StageProfiler.start();
+        String source = start == 0L ? null : StageProfiler.currentSource();
+        try {
+            producer.send(record, (metadata, exception) -> {
+                StageProfiler.end(source, Stage.ACK, start);
+                if (exception != null) {
+                    sendError = exception;
+                    logger.error("Failed to send event {}, the transaction will abort", event.getKey(), exception);
+                }
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            });
+        } catch (KafkaException e) {
+            abort(e);
+            throw e;
+        }
+        StageProfiler.end(Stage.ENQUEUE, start);
+        nextOffset = offset + 1;
+        eventCount++;
+        if (++chunkCount >= chunkRecords) {
+            commit(nextOffset);
+        }
+    }
+
+    /**
+     * Commits the open chunk together with a checkpoint at the given offset.
+     * An offset past the last sent event covers events that were filtered out.
+     */
+    public synchronized void commit(long offset) throws IOException {
+        if (offset < nextOffset) {
+            throw new IllegalArgumentException("Offset " + offset + " is before the next offset " + nextOffset);
+        }
+        nextOffset = offset;
+        if (!inTransaction && offset == committed.offset()) {
+            return;
+        }
+        SourceCheckpoint checkpoint = committed.withOffset(offset);
+        long start = System.nanoTime();
+        try {
+            beginIfNeeded();
+            // Wait for the chunk's callbacks so a failed send aborts instead of committing a gap
+            producer.flush();
+            Exception failure = sendError;
+            if (failure != null) {
+                throw new KafkaException("Send failed in transaction for source '" + checkpoint.source() + "'", failure);
+            }
+            producer.send(new ProducerRecord<>(checkpointTopic, checkpoint.source(), checkpoint.toJson()));
+            producer.commitTransaction();
+        } catch (KafkaException e) {
+            abort(e);
+            throw e;
+        }
+        commitNanos += System.nanoTime() - start;
+        commitCount++;
+        inTransaction = false;
+        chunkCount = 0;
+        committed = checkpoint;
+        logger.debug("Committed source '{}' up to offset {}", checkpoint.source(), offset);
+    }
+
+    public synchronized SourceCheckpoint getCommitted() { return committed; }
+
+    public synchronized long getCommitCount() { return commitCount; }
+
+    /**
+     * Not used, failed sends abort their transaction instead of being spooled
+     */
+    @Override
+    public void setRetrySpool(RetrySpool retrySpool) {
+    }
+
+    /**
+     * Commits the open chunk
+     */
+    @Override
+    public void flush() {
+        try {
+            commit(nextOffset);
+        } catch (IOException e) {
+            throw new KafkaException("Failed to write checkpoint for source '" + committed.source() + "'", e);
+        }
+    }
+
+    /**
+     * Aborts the open chunk, if any, then closes the Kafka producer.
+     * Call flush first to commit it.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (inTransaction) {
+            logger.warn("Aborting uncommitted chunk of {} events for source '{}'", chunkCount, committed.source());
+            try {
+                producer.abortTransaction();
+            } catch (KafkaException e) {
+                logger.error("Failed to abort transaction for source '{}'", committed.source(), e);
+            }
+            inTransaction = false;
+        }
+        logger.info("Closing transactional producer for topic {}: {} events in {} transactions, {} ms per commit",
+            topicName, eventCount, commitCount,
+            commitCount == 0 ? 0 : String.format("%.1f", commitNanos / 1e6 / commitCount));
+        producer.close();
+    }
+
+    private void beginIfNeeded() {
+        if (closed) {
+            throw new IllegalStateException("Producer for topic " + topicName + " is closed");
+        }
+        if (!inTransaction) {
+            producer.beginTransaction();
+            inTransaction = true;
+        }
+    }
+
+    /**
+     * Aborts the open transaction after an error. Fatal errors mean this
+     * producer can no longer be used, so it is closed instead.
+     */
+    private void abort(KafkaException cause) {
+        if (isFatal(cause)) {
+            logger.error("Fatal error in transaction for source '{}', closing producer", committed.source(), cause);
+            closed = true;
+            inTransaction = false;
+            producer.close();
+            return;
+        }
+        logger.error("Aborting transaction for source '{}' after {} events", committed.source(), chunkCount, cause);
+        try {
+            producer.abortTransaction();
+        } catch (KafkaException e) {
+            logger.error("Failed to abort transaction for source '{}'", committed.source(), e);
+        }
+        inTransaction = false;
+        chunkCount = 0;
+        nextOffset = committed.offset();
+        sendError = null;
+    }
+
+    /**
+     * Returns true for errors after which the producer cannot abort and must
+     * be closed. Send failures may wrap them.
+     */
+    private static boolean isFatal(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof ProducerFencedException || e instanceof OutOfOrderSequenceException
+                    || e instanceof AuthorizationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.profile;
+
+/**
+ * Pipeline stages timed by the {@link StageProfiler}
+ */
+public enum Stage {
+    /** Reading bytes from the CSV file */
+    READ(false),
+    /** CSV parsing and record mapping, excluding file I/O */
+    PARSE(false),
+    /** Serializing events to bytes */
+    SERIALIZE(false),
+    /** Handing records to the Kafka producer, including time blocked on a full buffer, excluding serialization */
+    ENQUEUE(false),
+    /** From handing a record to the producer until its send callback */
+    ACK(true),
+    /** Waiting for an in-flight slot before sending */
+    QUEUE_WAIT(true);
+
+    private final boolean latency;
+
+    Stage(boolean latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Returns true if spans of this stage overlap across in-flight records,
+     * so they are reported as mean latency per record rather than as total time
+     */
+    public boolean isLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted for each sampled stage span, and for the read and parse
+ * time of each file, when JFR output is enabled
+ */
+@Name("org.example.PipelineStage")
+@Label("Pipeline Stage")
+@Category("MovieProducer")
+@Description("Duration of one sampled span or per-file total of a pipeline stage")
+@StackTrace(false)
+class StageEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long durationNanos;
+}
@@ -0,0 +1,305 @@
+package org.example.profile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Low overhead per-stage timing for the pipeline.
+ *
+ * Per-record stages (serialize, enqueue, ack, queue wait) are timed for one
+ * in 'sampleRate' records; read and parse are timed per file. Time stages
+ * are reported as totals, scaled up by the sample rate. Latency stages (ack,
+ * queue wait) overlap across in-flight records and threads, so they are
+ * reported as mean latency per record instead.
+ *
+ * A span started with {@link #startEnclosing()} excludes the nested spans
+ * recorded on the same thread before it ends, e.g. the serialization that
+ * KafkaProducer.send runs inside the enqueue span. Nested spans follow the
+ * sampling decision of their enclosing span.
+ *
+ * Stats are kept per source: the thread running a source sets it with
+ * {@link #setSource}. When disabled every call is a single volatile read.
+ */
+public final class StageProfiler {
+
+    private static final String DEFAULT_SOURCE = "default";
+    private static final Stage[] STAGES = Stage.values();
+    private static final ThreadLocal<String> currentSource = ThreadLocal.withInitial(() -> DEFAULT_SOURCE);
+    private static final Map<String, SourceStats> stats = new ConcurrentSkipListMap<>();
+    // Per thread: NO_SPAN, UNSAMPLED, or the nanos of nested spans within the open enclosing span
+    private static final long NO_SPAN = Long.MIN_VALUE;
+    private static final long UNSAMPLED = -1L;
+    private static final ThreadLocal<long[]> enclosing = ThreadLocal.withInitial(() -> new long[] {NO_SPAN});
+
+    private static volatile boolean enabled;
+    private static volatile boolean jfrEnabled;
+    private static volatile int sampleRate = 1;
+
+    private StageProfiler() {
+    }
+
+    /**
+     * Enables profiling
+     * @param rate time one in 'rate' per-record spans
+     * @param jfr also emit a JFR event for every sampled span
+     */
+    public static void enable(int rate, boolean jfr) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1");
+        }
+        sampleRate = rate;
+        jfrEnabled = jfr;
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the source that spans recorded on the current thread belong to
+     */
+    public static void setSource(String source) {
+        currentSource.set(source);
+    }
+
+    public static String currentSource() {
+        return currentSource.get();
+    }
+
+    /**
+     * Starts a sampled span
+     * @return the start time, or 0 if this span is not sampled
+     */
+    public static long start() {
+        if (!enabled) {
+            return 0L;
+        }
+        int rate = sampleRate;
+        if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0) {
+            return 0L;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Starts a sampled span that excludes nested spans, see {@link #endEnclosing}
+     * @return the start time, or 0 if this span is not sampled
+     */
+    public static long startEnclosing() {
+        if (!enabled) {
+            return 0L;
+        }
+        long start = start();
+        enclosing.get()[0] = start == 0L ? UNSAMPLED : 0L;
+        return start;
+    }
+
+    /**
+     * Ends a span started with {@link #startEnclosing()}, minus the time of its nested spans
+     */
+    public static void endEnclosing(Stage stage, long start) {
+        if (!enabled) {
+            return;
+        }
+        long[] state = enclosing.get();
+        long nested = Math.max(0L, state[0]);
+        state[0] = NO_SPAN;
+        if (start != 0L) {
+            record(currentSource.get(), stage, System.nanoTime() - start - nested);
+        }
+    }
+
+    /**
+     * Starts a span that may run inside an enclosing span on this thread. It is
+     * sampled together with the enclosing span, or on its own if there is none.
+     * @return the start time, or 0 if this span is not sampled
+     */
+    public static long startNested() {
+        if (!enabled) {
+            return 0L;
+        }
+        long state = enclosing.get()[0];
+        if (state == NO_SPAN) {
+            return start();
+        }
+        return state == UNSAMPLED ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Ends a span started with {@link #startNested()}, excluding it from the enclosing span
+     */
+    public static void endNested(Stage stage, long start) {
+        if (start == 0L) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        long[] state = enclosing.get();
+        if (state[0] >= 0L) {
+            state[0] += duration;
+        }
+        record(currentSource.get(), stage, duration);
+    }
+
+    /**
+     * Ends a span started with {@link #start()} on the current thread's source
+     */
+    public static void end(Stage stage, long start) {
+        if (start != 0L) {
+            end(currentSource.get(), stage, start);
+        }
+    }
+
+    /**
+     * Ends a span started with {@link #start()}, e.g. from a callback on another thread
+     */
+    public static void end(String source, Stage stage, long start) {
+        if (start != 0L) {
+            record(source, stage, System.nanoTime() - start);
+        }
+    }
+
+    private static void record(String source, Stage stage, long duration) {
+        statsFor(source).add(stage, duration, sampleRate);
+        commitEvent(source, stage, duration);
+    }
+
+    /**
+     * Records an unsampled total for a stage, e.g. the read time of a whole file
+     */
+    public static void addTime(String source, Stage stage, long nanos) {
+        if (enabled) {
+            statsFor(source).add(stage, nanos, 1);
+            commitEvent(source, stage, nanos);
+        }
+    }
+
+    private static void commitEvent(String source, Stage stage, long duration) {
+        if (jfrEnabled) {
+            StageEvent event = new StageEvent();
+            if (event.isEnabled()) {
+                event.source = source;
+                event.stage = stage.name();
+                event.durationNanos = duration;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Records the size of a record serialized in a sampled span, scaled by the sample rate
+     */
+    public static void addSampledBytes(long bytes) {
+        if (enabled) {
+            statsFor(currentSource.get()).bytes.add(bytes * sampleRate);
+        }
+    }
+
+    /**
+     * Records bytes allocated by a thread while working on a source
+     */
+    public static void addAllocated(String source, long bytes) {
+        if (enabled && bytes > 0) {
+            statsFor(source).allocated.add(bytes);
+        }
+    }
+
+    /**
+     * Records the number of rows and the wall time of a source
+     */
+    public static void addSource(String source, long rows, long wallNanos) {
+        if (enabled) {
+            SourceStats sourceStats = statsFor(source);
+            sourceStats.rows.add(rows);
+            sourceStats.wallNanos.add(wallNanos);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or -1 if the JVM cannot tell
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (enabled && threads instanceof com.sun.management.ThreadMXBean sunThreads) {
+            return sunThreads.getCurrentThreadAllocatedBytes();
+        }
+        return -1L;
+    }
+
+    /**
+     * Formats the per source, per stage report. Time stages are totals scaled
+     * by the sample rate and summed over threads, latency stages are means per record.
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("Pipeline performance report (sample rate 1/")
+            .append(sampleRate).append(")\n");
+        report.append(String.format("%-10s %10s %9s %11s %9s %10s", "source", "rows", "wall s", "rows/s",
+            "MB/s", "alloc B/row"));
+        for (Stage stage : STAGES) {
+            String name = stage.name().toLowerCase(Locale.ROOT);
+            report.append(String.format(" %17s", stage.isLatency() ? name + " avg us" : name + " ms"));
+        }
+        report.append('\n');
+        for (Map.Entry<String, SourceStats> entry : stats.entrySet()) {
+            SourceStats s = entry.getValue();
+            long rows = s.rows.sum();
+            double seconds = s.wallNanos.sum() / 1e9;
+            report.append(String.format("%-10s %10d %9.2f %11.0f %9.1f %10.0f", entry.getKey(), rows, seconds,
+                seconds > 0 ? rows / seconds : 0.0,
+                seconds > 0 ? s.bytes.sum() / 1e6 / seconds : 0.0,
+                rows > 0 ? (double) s.allocated.sum() / rows : 0.0));
+            for (Stage stage : STAGES) {
+                report.append(String.format(" %17.1f", stage.isLatency() ? s.meanMicros(stage)
+                    : s.nanos[stage.ordinal()].sum() / 1e6));
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Clears all recorded stats
+     */
+    public static void reset() {
+        stats.clear();
+    }
+
+    private static SourceStats statsFor(String source) {
+        return stats.computeIfAbsent(source, key -> new SourceStats());
+    }
+
+    private static final class SourceStats {
+        private final LongAdder[] nanos = new LongAdder[STAGES.length];
+        private final LongAdder[] samples = new LongAdder[STAGES.length];
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+
+        private SourceStats() {
+            for (int i = 0; i < nanos.length; i++) {
+                nanos[i] = new LongAdder();
+                samples[i] = new LongAdder();
+            }
+        }
+
+        private void add(Stage stage, long duration, int scale) {
+            if (stage.isLatency()) {
+                nanos[stage.ordinal()].add(duration);
+                samples[stage.ordinal()].increment();
+            } else {
+                nanos[stage.ordinal()].add(duration * scale);
+            }
+        }
+
+        private double meanMicros(Stage stage) {
+            long count = samples[stage.ordinal()].sum();
+            return count == 0 ? 0.0 : nanos[stage.ordinal()].sum() / 1e3 / count;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.profile;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader wrapper that measures the time spent reading from its delegate, so a
+ * caller can split the read time of a file from the time spent parsing it
+ */
+public class TimingReader extends Reader {
+
+    private final Reader delegate;
+    private long nanos;
+
+    public TimingReader(Reader delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int read = delegate.read(buffer, offset, length);
+        nanos += System.nanoTime() - start;
+        return read;
+    }
+
+    /**
+     * Returns the time spent in reads so far
+     */
+    public long getNanos() { return nanos; }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.serializer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Encodes several serialized events into a single Kafka record value, and
+ * decodes them again on the consumer side.
+ *
+ * Layout: magic byte, version byte, event count (int), then for each event
+ * its length (int) followed by its serialized bytes.
+ */
+public final class EnvelopeCodec {
+
+    /** Header set on envelope records so consumers can tell them from single events */
+    public static final String HEADER = "envelope";
+
+    public static final byte MAGIC = 0x45;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 2 + Integer.BYTES;
+    public static final int ENTRY_OVERHEAD = Integer.BYTES;
+
+    private EnvelopeCodec() {
+    }
+
+    /**
+     * Encodes serialized events into an envelope
+     */
+    public static byte[] encode(List<byte[]> events) {
+        int size = HEADER_SIZE;
+        for (byte[] event : events) {
+            size += ENTRY_OVERHEAD + event.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC).put(VERSION).putInt(events.size());
+        for (byte[] event : events) {
+            buffer.putInt(event.length).put(event);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes an envelope into the serialized events it contains
+     * @throws IllegalArgumentException if the value is not a valid envelope
+     */
+    public static List<byte[]> decode(byte[] envelope) {
+        ByteBuffer buffer = ByteBuffer.wrap(envelope);
+        if (envelope.length < HEADER_SIZE || buffer.get() != MAGIC) {
+            throw new IllegalArgumentException("Not an event envelope");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported envelope version: " + version);
+        }
+        int count = buffer.getInt();
+        // Every event takes at least ENTRY_OVERHEAD bytes, so a larger count is corrupt
+        if (count < 0 || count > buffer.remaining() / ENTRY_OVERHEAD) {
+            throw new IllegalArgumentException("Invalid envelope event count: " + count);
+        }
+        List<byte[]> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < ENTRY_OVERHEAD) {
+                throw new IllegalArgumentException("Truncated envelope at event " + i);
+            }
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Truncated envelope at event " + i);
+            }
+            int start = buffer.position();
+            events.add(Arrays.copyOfRange(envelope, start, start + length));
+            buffer.position(start + length);
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException(buffer.remaining() + " trailing bytes after envelope");
+        }
+        return events;
+    }
+
+    /**
+     * Decodes an envelope and deserializes each event
+     */
+    public static <T> List<T> decode(byte[] envelope, String topic, Deserializer<T> deserializer) {
+        List<byte[]> serialized = decode(envelope);
+        List<T> events = new ArrayList<>(serialized.size());
+        for (byte[] event : serialized) {
+            events.add(deserializer.deserialize(topic, event));
+        }
+        return events;
+    }
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.apache.kafka.common.serialization.Serializer;
+import org.example.profile.Stage;
+import org.example.profile.StageProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,8 +25,14 @@ public class JsonSerializer<T> implements Serializer<T> {
         if (data == null) {
             return null;
         }
+        long start = StageProfiler.startNested();
         try {
-            return objectMapper.writeValueAsBytes(data);
+            byte[] bytes = objectMapper.writeValueAsBytes(data);
+            if (start != 0L) {
+                StageProfiler.endNested(Stage.SERIALIZE, start);
+                StageProfiler.addSampledBytes(bytes.length);
+            }
+            return bytes;
         } catch (Exception e) {
             logger.error("Error serializing object: {}", e.getMessage(), e);
             throw new RuntimeException("Error serializing object", e);
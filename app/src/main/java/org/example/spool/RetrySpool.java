@@ -0,0 +1,436 @@
+package org.example.spool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disk-backed spool for records whose send failed.
+ *
+ * Failed records are appended in serialized form to segment files in the
+ * spool directory, so they are not held on the heap and survive a restart.
+ * {@link #startRetry} resends them on a background thread in rounds with
+ * exponential backoff. Records that fail again go back into the spool until
+ * they reach the maximum number of attempts, after which they are written
+ * to a dead letter file.
+ *
+ * Segment record layout: length (int), CRC32 of the payload (int), payload.
+ * A segment with a torn or corrupt record is renamed to '*.log.corrupt'
+ * after the records before it are resent, so the records after it are kept
+ * for inspection rather than deleted.
+ */
+public class RetrySpool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetrySpool.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    private static final String QUARANTINE_SUFFIX = ".corrupt";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    private final LongAdder appendedCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final LongAdder recoveredCount = new LongAdder();
+    private final LongAdder deadCount = new LongAdder();
+    private final LongAdder quarantinedCount = new LongAdder();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final CountDownLatch retryDone = new CountDownLatch(1);
+
+    private long nextSegment;
+    private DataOutputStream segmentOut;
+    private long segmentSize;
+    private Thread retryThread;
+
+    /**
+     * Opens the spool, picking up any segments left by a previous run
+     */
+    public RetrySpool(Path directory, long segmentBytes, int maxAttempts, long backoffMs, long maxBackoffMs)
+            throws IOException {
+        if (segmentBytes < 1 || maxAttempts < 1 || backoffMs < 0 || maxBackoffMs < backoffMs) {
+            throw new IllegalArgumentException("Invalid retry spool settings");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        List<Path> segments = listSegments();
+        this.nextSegment = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+        if (!segments.isEmpty()) {
+            logger.info("Retry spool {} holds {} segment(s), {} bytes from a previous run",
+                directory, segments.size(), getSizeBytes());
+        }
+    }
+
+    /**
+     * Appends a failed record to the current segment
+     */
+    public synchronized void append(SpooledRecord record) throws IOException {
+        byte[] payload = encode(record);
+        if (segmentOut == null || segmentSize >= segmentBytes) {
+            rollSegment();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        segmentOut.writeInt(payload.length);
+        segmentOut.writeInt((int) crc.getValue());
+        segmentOut.write(payload);
+        segmentOut.flush();
+        segmentSize += 2 * Integer.BYTES + payload.length;
+        appendedCount.increment();
+    }
+
+    /**
+     * Starts resending spooled records on a background thread.
+     * The thread stops once the spool is empty or {@link #close} is called.
+     */
+    public synchronized void startRetry(Producer<byte[], byte[]> producer) {
+        if (retryThread != null) {
+            throw new IllegalStateException("Retry already started");
+        }
+        retryThread = new Thread(() -> {
+            try {
+                retryLoop(producer);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Retry spool thread failed: {}", e.getMessage(), e);
+            } finally {
+                retryDone.countDown();
+            }
+        }, "retry-spool");
+        retryThread.setDaemon(true);
+        retryThread.start();
+    }
+
+    /**
+     * Waits for the retry thread to empty the spool
+     * @return true if the spool was drained within the timeout
+     */
+    public boolean awaitRetry(long timeout, TimeUnit unit) throws InterruptedException {
+        return retryDone.await(timeout, unit);
+    }
+
+    /**
+     * Returns the total size of all segments in bytes
+     */
+    public long getSizeBytes() throws IOException {
+        long size = 0;
+        for (Path segment : listSegments()) {
+            size += Files.size(segment);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the age in milliseconds of the first record in the oldest segment, or 0 if the spool is empty
+     */
+    public long getOldestAgeMs() throws IOException {
+        for (Path segment : listSegments()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                SpooledRecord record = readRecord(in, segment);
+                if (record != null) {
+                    return Math.max(0, System.currentTimeMillis() - record.firstFailedMs());
+                }
+            } catch (CorruptRecordException e) {
+                // Quarantined by the next retry round, look at the next segment
+            }
+        }
+        return 0;
+    }
+
+    public long getAppendedCount() { return appendedCount.sum(); }
+
+    public long getRetriedCount() { return retriedCount.sum(); }
+
+    public long getRecoveredCount() { return recoveredCount.sum(); }
+
+    public long getDeadCount() { return deadCount.sum(); }
+
+    public long getQuarantinedCount() { return quarantinedCount.sum(); }
+
+    /**
+     * Logs the spool size, age and retry counts
+     */
+    public void logStatus() throws IOException {
+        logger.info("Retry spool {}: {} bytes, oldest {} ms, {} appended, {} retried, {} recovered, {} dead, "
+                + "{} segments quarantined", directory, getSizeBytes(), getOldestAgeMs(), getAppendedCount(),
+            getRetriedCount(), getRecoveredCount(), getDeadCount(), getQuarantinedCount());
+    }
+
+    /**
+     * Stops the retry thread and closes the current segment.
+     * Records not yet resent stay on disk for the next run.
+     */
+    @Override
+    public void close() throws IOException {
+        stopping.set(true);
+        Thread thread;
+        synchronized (this) {
+            thread = retryThread;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            closeSegment();
+        }
+    }
+
+    private void retryLoop(Producer<byte[], byte[]> producer) throws IOException, InterruptedException {
+        int round = 0;
+        while (!stopping.get()) {
+            List<Path> segments;
+            synchronized (this) {
+                // Records appended from now on go to a new segment and are picked up next round
+                closeSegment();
+                segments = listSegments();
+            }
+            if (segments.isEmpty()) {
+                logger.info("Retry spool {} is empty", directory);
+                return;
+            }
+
+            long delay = Math.min(maxBackoffMs, backoffMs << Math.min(round, 30));
+            logger.info("Retry round {} in {} ms for {} segment(s)", round + 1, delay, segments.size());
+            Thread.sleep(delay);
+
+            for (Path segment : segments) {
+                if (stopping.get()) {
+                    return;
+                }
+                resendSegment(producer, segment);
+            }
+            round++;
+        }
+    }
+
+    /**
+     * Resends every record of a segment, then deletes it once all sends have completed.
+     * A segment with a corrupt record is quarantined instead of deleted.
+     */
+    private void resendSegment(Producer<byte[], byte[]> producer, Path segment) throws IOException {
+        CorruptRecordException corruption = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                SpooledRecord record;
+                try {
+                    record = readRecord(in, segment);
+                } catch (CorruptRecordException e) {
+                    corruption = e;
+                    break;
+                }
+                if (record == null) {
+                    break;
+                }
+                SpooledRecord spooled = record;
+                retriedCount.increment();
+                ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(spooled.topic(),
+                    spooled.partition(), null, spooled.key(), spooled.value(), spooled.headers());
+                producer.send(producerRecord, (metadata, exception) -> {
+                    if (exception == null) {
+                        recoveredCount.increment();
+                    } else {
+                        failedAgain(spooled, exception);
+                    }
+                });
+            }
+        }
+        // All callbacks have run once flush returns, so the segment's records are either sent or re-spooled
+        producer.flush();
+        if (corruption == null) {
+            Files.delete(segment);
+            return;
+        }
+        Path quarantined = segment.resolveSibling(segment.getFileName() + QUARANTINE_SUFFIX);
+        Files.move(segment, quarantined, StandardCopyOption.REPLACE_EXISTING);
+        quarantinedCount.increment();
+        logger.error("Corrupt record in spool segment {}, records before it were resent, "
+            + "moved the segment to {}: {}", segment, quarantined, corruption.getMessage());
+    }
+
+    private void failedAgain(SpooledRecord record, Exception exception) {
+        SpooledRecord retry = new SpooledRecord(record.topic(), record.partition(), record.key(), record.value(),
+            record.headers(), record.firstFailedMs(), record.attempts() + 1);
+        try {
+            if (retry.attempts() >= maxAttempts) {
+                logger.error("Giving up on record for topic {} after {} attempts", record.topic(),
+                    retry.attempts(), exception);
+                appendDeadLetter(retry);
+            } else {
+                append(retry);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to re-spool record for topic {}, record is lost", record.topic(), e);
+        }
+    }
+
+    private synchronized void appendDeadLetter(SpooledRecord record) throws IOException {
+        byte[] payload = encode(record);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+        }
+        deadCount.increment();
+    }
+
+    private void rollSegment() throws IOException {
+        closeSegment();
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+        segmentOut = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        segmentSize = 0;
+    }
+
+    private void closeSegment() throws IOException {
+        if (segmentOut != null) {
+            segmentOut.close();
+            segmentOut = null;
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] encode(SpooledRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + record.value().length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(record.firstFailedMs());
+        out.writeInt(record.attempts());
+        out.writeUTF(record.topic());
+        out.writeInt(record.partition() == null ? -1 : record.partition());
+        writeBytes(out, record.key());
+        writeBytes(out, record.value());
+        List<Header> headers = record.headers() == null ? List.of() : record.headers();
+        out.writeInt(headers.size());
+        for (Header header : headers) {
+            out.writeUTF(header.key());
+            writeBytes(out, header.value());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the next record of a segment
+     * @return the record, or null at the end of the segment
+     * @throws CorruptRecordException at a torn or corrupt record
+     */
+    private static SpooledRecord readRecord(DataInputStream in, Path segment) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        try {
+            int checksum = in.readInt();
+            if (length < 0) {
+                throw new IOException("negative record length");
+            }
+            byte[] payload = in.readNBytes(length);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (payload.length != length || (int) crc.getValue() != checksum) {
+                throw new IOException("checksum mismatch");
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            long firstFailedMs = record.readLong();
+            int attempts = record.readInt();
+            String topic = record.readUTF();
+            int partition = record.readInt();
+            byte[] key = readBytes(record);
+            byte[] value = readBytes(record);
+            int headerCount = record.readInt();
+            List<Header> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(new RecordHeader(record.readUTF(), readBytes(record)));
+            }
+            return new SpooledRecord(topic, partition < 0 ? null : partition, key, value, headers,
+                firstFailedMs, attempts);
+        } catch (IOException e) {
+            throw new CorruptRecordException("Corrupt record in spool segment " + segment + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("truncated field");
+        }
+        return bytes;
+    }
+
+    /**
+     * Thrown when a segment holds a torn or corrupt record
+     */
+    private static final class CorruptRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.spool;
+
+import java.util.List;
+
+import org.apache.kafka.common.header.Header;
+
+/**
+ * A failed Kafka record in serialized form, as stored in the retry spool
+ *
+ * @param topic target topic
+ * @param partition target partition, or null to let the partitioner choose
+ * @param key serialized key, may be null
+ * @param value serialized value
+ * @param headers record headers
+ * @param firstFailedMs when the record first failed
+ * @param attempts number of failed send attempts so far
+ */
+public record SpooledRecord(String topic, Integer partition, byte[] key, byte[] value, List<Header> headers,
+                            long firstFailedMs, int attempts) {
+}
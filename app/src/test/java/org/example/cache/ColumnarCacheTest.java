@@ -0,0 +1,175 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ColumnarCacheTest {
+
+    private static final ColumnarCodec<Row> CODEC = codec("rows-v1");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsRecordsWithNulls() throws Exception {
+        Path source = source("a,b,c\n");
+        List<Row> rows = List.of(
+            new Row("first", 1L, 0.5),
+            new Row(null, null, null),
+            new Row("", Long.MIN_VALUE, Double.NaN),
+            new Row("Amélie (2001)", Long.MAX_VALUE, -1.25));
+        ColumnarCache cache = new ColumnarCache(dir.resolve("cache"));
+
+        cache.write(source, rows, CODEC);
+
+        assertEquals(Optional.of(rows), cache.read(source, CODEC));
+    }
+
+    @Test
+    void roundTripsNullsPastTheFirstBitmapWord() throws Exception {
+        Path source = source("a,b,c\n");
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add(new Row(i % 3 == 0 ? null : "row" + i, i % 5 == 0 ? null : (long) i,
+                i % 7 == 0 ? null : i / 4.0));
+        }
+        ColumnarCache cache = new ColumnarCache(dir.resolve("cache"));
+
+        cache.write(source, rows, CODEC);
+
+        assertEquals(Optional.of(rows), cache.read(source, CODEC));
+    }
+
+    @Test
+    void roundTripsEmptySource() throws Exception {
+        Path source = source("");
+        ColumnarCache cache = new ColumnarCache(dir.resolve("cache"));
+
+        cache.write(source, List.of(), CODEC);
+
+        assertEquals(Optional.of(List.of()), cache.read(source, CODEC));
+    }
+
+    @Test
+    void missingEntryIsEmpty() throws Exception {
+        Path source = source("a,b,c\n");
+
+        assertFalse(new ColumnarCache(dir.resolve("cache")).read(source, CODEC).isPresent());
+    }
+
+    @Test
+    void changedModificationTimeInvalidatesEntry() throws Exception {
+        Path source = source("a,b,c\n");
+        ColumnarCache cache = new ColumnarCache(dir.resolve("cache"));
+        cache.write(source, List.of(new Row("a", 1L, 1.0)), CODEC);
+
+        FileTime modified = Files.getLastModifiedTime(source);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(modified.toMillis() + 60_000));
+
+        assertFalse(cache.read(source, CODEC).isPresent());
+    }
+
+    @Test
+    void changedSizeInvalidatesEntry() throws Exception {
+        Path source = source("a,b,c\n");
+        ColumnarCache cache = new ColumnarCache(dir.resolve("cache"));
+        cache.write(source, List.of(new Row("a", 1L, 1.0)), CODEC);
+
+        // Keep the modification time so only the size differs
+        FileTime modified = Files.getLastModifiedTime(source);
+        Files.writeString(source, "d,e,f\n", StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(source, modified);
+
+        assertFalse(cache.read(source, CODEC).isPresent());
+    }
+
+    @Test
+    void codecIdChangeInvalidatesEntry() throws Exception {
+        Path source = source("a,b,c\n");
+        ColumnarCache cache = new ColumnarCache(dir.resolve("cache"));
+        cache.write(source, List.of(new Row("a", 1L, 1.0)), CODEC);
+
+        assertFalse(cache.read(source, codec("rows-v2")).isPresent());
+        assertTrue(cache.read(source, CODEC).isPresent());
+    }
+
+    @Test
+    void rewriteReplacesStaleEntry() throws Exception {
+        Path source = source("a,b,c\n");
+        Path cacheDir = dir.resolve("cache");
+        ColumnarCache cache = new ColumnarCache(cacheDir);
+        cache.write(source, List.of(new Row("old", 1L, 1.0)), CODEC);
+
+        Files.writeString(source, "a,b,c\nd,e,f\n");
+        List<Row> rows = List.of(new Row("new", 2L, 2.0), new Row("newer", 3L, 3.0));
+        cache.write(source, rows, CODEC);
+
+        assertEquals(Optional.of(rows), cache.read(source, CODEC));
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(1, files.count(), "no temp files are left behind");
+        }
+    }
+
+    @Test
+    void corruptEntryIsEmpty() throws Exception {
+        Path source = source("a,b,c\n");
+        Path cacheDir = dir.resolve("cache");
+        ColumnarCache cache = new ColumnarCache(cacheDir);
+        cache.write(source, List.of(new Row("a", 1L, 1.0)), CODEC);
+
+        try (var files = Files.list(cacheDir)) {
+            Path entry = files.findFirst().orElseThrow();
+            Files.write(entry, "garbage".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertFalse(cache.read(source, CODEC).isPresent());
+    }
+
+    private Path source(String content) throws Exception {
+        Path source = dir.resolve("source.csv");
+        Files.writeString(source, content);
+        return source;
+    }
+
+    private record Row(String name, Long count, Double score) {
+    }
+
+    private static ColumnarCodec<Row> codec(String codecId) {
+        return new ColumnarCodec<>() {
+            @Override
+            public String getCodecId() {
+                return codecId;
+            }
+
+            @Override
+            public ColumnType[] getColumnTypes() {
+                return new ColumnType[] {ColumnType.STRING, ColumnType.LONG, ColumnType.DOUBLE};
+            }
+
+            @Override
+            public void writeRow(Row record, RowWriter row) {
+                row.putString(0, record.name());
+                row.putLong(1, record.count());
+                row.putDouble(2, record.score());
+            }
+
+            @Override
+            public Row readRow(RowReader row) {
+                return new Row(row.getString(0), row.getLong(1), row.getDouble(2));
+            }
+        };
+    }
+}
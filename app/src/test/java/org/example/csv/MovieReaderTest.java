@@ -0,0 +1,127 @@
+package org.example.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.example.cache.ColumnarCache;
+import org.example.model.Genre;
+import org.example.model.MovieEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MovieReaderTest {
+
+    private static final String MOVIES_CSV = String.join("\n",
+        "movieId,title,genres",
+        "1,Toy Story (1995),Adventure|Animation|Children|Comedy|Fantasy",
+        "2,\"American President, The (1995)\",Comedy|Drama|Romance",
+        "3,Decalogue (1989-1990),Drama",
+        "4,Babylon 5,(no genres listed)",
+        "5,(1995),Documentary",
+        "6,Ready Player One (2018) ,Sci-Fi",
+        "7,Movie 43 (unrated),Comedy",
+        "");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsYearSuffix() {
+        assertEquals(10, MovieReader.yearStart("Toy Story (1995)"));
+        assertEquals(10, MovieReader.yearStart("Decalogue (1989-1990)"));
+        assertEquals(10, MovieReader.yearStart("Decalogue (1994-)"));
+        assertEquals(17, MovieReader.yearStart("Ready Player One (2018)  "));
+        assertEquals(0, MovieReader.yearStart("(1995)"));
+        assertEquals(13, MovieReader.yearStart("Ghost (1990) (1990)"));
+    }
+
+    @Test
+    void titlesWithoutYearHaveNoYearStart() {
+        assertEquals(-1, MovieReader.yearStart(""));
+        assertEquals(-1, MovieReader.yearStart("Babylon 5"));
+        assertEquals(-1, MovieReader.yearStart("Movie 43 (unrated)"));
+        assertEquals(-1, MovieReader.yearStart("Short (95)"));
+        assertEquals(-1, MovieReader.yearStart("Odd (19a5)"));
+        assertEquals(-1, MovieReader.yearStart("Odd (19955)"));
+        assertEquals(-1, MovieReader.yearStart("1995)"));
+    }
+
+    @Test
+    void parsesYearCleanTitleAndGenres() throws Exception {
+        List<MovieEvent> movies = new MovieReader().readEvents(moviesFile().toString());
+
+        assertEquals(7, movies.size());
+        assertMovie(movies.get(0), "Toy Story", 1995, Genre.ADVENTURE.mask() | Genre.ANIMATION.mask()
+            | Genre.CHILDREN.mask() | Genre.COMEDY.mask() | Genre.FANTASY.mask());
+        assertMovie(movies.get(1), "American President, The", 1995,
+            Genre.COMEDY.mask() | Genre.DRAMA.mask() | Genre.ROMANCE.mask());
+        assertMovie(movies.get(2), "Decalogue", 1989, Genre.DRAMA.mask());
+        assertMovie(movies.get(3), "Babylon 5", null, 0L);
+        assertMovie(movies.get(4), "", 1995, Genre.DOCUMENTARY.mask());
+        assertMovie(movies.get(5), "Ready Player One", 2018, Genre.SCI_FI.mask());
+        assertMovie(movies.get(6), "Movie 43 (unrated)", null, Genre.COMEDY.mask());
+        assertEquals("Decalogue (1989-1990)", movies.get(2).getTitle());
+        assertEquals("(no genres listed)", movies.get(3).getGenres());
+    }
+
+    @Test
+    void cachedMoviesMatchParsedMovies() throws Exception {
+        Path movies = moviesFile();
+        ColumnarCache cache = new ColumnarCache(dir.resolve("cache"));
+        List<MovieEvent> parsed = new MovieReader(cache).readEvents(movies.toString());
+
+        List<MovieEvent> cached = new MovieReader(cache).readEvents(movies.toString());
+
+        assertEquals(parsed.size(), cached.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            MovieEvent expected = parsed.get(i);
+            assertEquals(expected.getMovieId(), cached.get(i).getMovieId());
+            assertEquals(expected.getTitle(), cached.get(i).getTitle());
+            assertEquals(expected.getGenres(), cached.get(i).getGenres());
+            assertMovie(cached.get(i), expected.getCleanTitle(), expected.getYear(), expected.getGenreMask());
+        }
+    }
+
+    @Test
+    void invalidUtf8IsRejected() throws Exception {
+        Path movies = dir.resolve("movies.csv");
+        byte[] start = "movieId,title,genres\n1,Am".getBytes(StandardCharsets.UTF_8);
+        byte[] rest = "lie (2001),Comedy\n".getBytes(StandardCharsets.UTF_8);
+        // 0xE9 is 'é' in Latin-1 but not valid UTF-8 on its own
+        Files.write(movies, concat(start, new byte[] {(byte) 0xE9}, rest));
+
+        assertThrows(CharacterCodingException.class, () -> new MovieReader().readEvents(movies.toString()));
+    }
+
+    private Path moviesFile() throws Exception {
+        Path movies = dir.resolve("movies.csv");
+        Files.writeString(movies, MOVIES_CSV);
+        return movies;
+    }
+
+    private static void assertMovie(MovieEvent movie, String cleanTitle, Integer year, long genreMask) {
+        assertEquals(cleanTitle, movie.getCleanTitle(), movie.getTitle());
+        if (year == null) {
+            assertNull(movie.getYear(), movie.getTitle());
+        } else {
+            assertEquals(year, movie.getYear(), movie.getTitle());
+        }
+        assertEquals(genreMask, movie.getGenreMask(), movie.getTitle());
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.dictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TagDictionaryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void normalizesCaseAndWhitespace() {
+        assertEquals("dark comedy", TagDictionary.normalize("  Dark \t  COMEDY\n"));
+        assertEquals("sci-fi", TagDictionary.normalize("Sci-Fi"));
+        assertEquals("", TagDictionary.normalize(" \t "));
+        assertThrows(IllegalArgumentException.class, () -> TagDictionary.normalize(null));
+    }
+
+    @Test
+    void sameNormalizedTagGetsSameId() {
+        List<String> notified = new ArrayList<>();
+        TagDictionary dictionary = new TagDictionary((id, tag) -> notified.add(id + ":" + tag));
+
+        int id = dictionary.idFor("Pixar");
+        assertEquals(id, dictionary.idFor(" pixar "));
+        assertEquals(id + 1, dictionary.idFor("funny"));
+
+        assertEquals(2, dictionary.size());
+        assertEquals(List.of(id + ":pixar", (id + 1) + ":funny"), notified);
+    }
+
+    @Test
+    void concurrentCallersShareOneIdAndNotifyOnce() throws Exception {
+        int threads = 8;
+        int tags = 500;
+        Map<Integer, String> notified = new ConcurrentHashMap<>();
+        List<String> duplicates = new ArrayList<>();
+        TagDictionary dictionary = new TagDictionary((id, tag) -> {
+            if (notified.putIfAbsent(id, tag) != null) {
+                synchronized (duplicates) {
+                    duplicates.add(tag);
+                }
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<int[]>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int[] ids = new int[tags];
+                    for (int i = 0; i < tags; i++) {
+                        ids[i] = dictionary.idFor("Tag " + i);
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+            int[] expected = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<int[]> result : results) {
+                int[] ids = result.get(30, TimeUnit.SECONDS);
+                for (int i = 0; i < tags; i++) {
+                    assertEquals(expected[i], ids[i], "tag " + i);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(tags, dictionary.size());
+        assertEquals(tags, notified.size());
+        assertTrue(duplicates.isEmpty(), "listener notified more than once for " + duplicates);
+        Set<Integer> ids = new HashSet<>(notified.keySet());
+        for (int id = 0; id < tags; id++) {
+            assertTrue(ids.contains(id), "ids are assigned without gaps");
+        }
+    }
+
+    @Test
+    void seededDictionaryContinuesAfterHighestId() {
+        List<String> notified = new ArrayList<>();
+        TagDictionary dictionary = new TagDictionary(Map.of("pixar", 3, "funny", 17, "classic", 5),
+            (id, tag) -> notified.add(id + ":" + tag));
+
+        assertEquals(17, dictionary.idFor("Funny"));
+        assertEquals(3, dictionary.idFor("PIXAR"));
+        assertEquals(18, dictionary.idFor("noir"));
+        assertEquals(19, dictionary.idFor("heist"));
+
+        assertEquals(List.of("18:noir", "19:heist"), notified, "seeded entries are not published again");
+        assertEquals(5, dictionary.size());
+    }
+
+    @Test
+    void emptySeedStartsAtZero() {
+        TagDictionary dictionary = new TagDictionary(Map.of(), null);
+
+        assertEquals(0, dictionary.idFor("first"));
+        assertEquals(1, dictionary.idFor("second"));
+    }
+
+    @Test
+    void savesEntriesOrderedById() throws Exception {
+        TagDictionary dictionary = new TagDictionary(Map.of("pixar", 2), null);
+        dictionary.idFor("Dark  Comedy");
+        dictionary.idFor("funny");
+        Path file = dir.resolve("tags.dict");
+
+        dictionary.save(file);
+
+        assertEquals(List.of("2\tpixar", "3\tdark comedy", "4\tfunny"), Files.readAllLines(file));
+    }
+}
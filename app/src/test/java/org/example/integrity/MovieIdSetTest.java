@@ -0,0 +1,94 @@
+package org.example.integrity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.example.model.MovieEvent;
+import org.junit.jupiter.api.Test;
+
+class MovieIdSetTest {
+
+    @Test
+    void emptyMovieListGivesEmptySet() {
+        MovieIdSet ids = MovieIdSet.fromMovies(List.of());
+
+        assertEquals(0, ids.size());
+        assertFalse(ids.contains("0"));
+        assertFalse(ids.contains("1"));
+    }
+
+    @Test
+    void moviesWithoutNumericIdsGiveEmptySet() {
+        MovieIdSet ids = MovieIdSet.fromMovies(movies("tt0114709", "", "-1", "99999999999"));
+
+        assertEquals(0, ids.size());
+        assertFalse(ids.contains("tt0114709"));
+        assertFalse(ids.contains("1"));
+    }
+
+    @Test
+    void denseIdsAreFound() {
+        List<String> movieIds = new ArrayList<>();
+        for (int id = 1; id <= 1000; id += 3) {
+            movieIds.add(Integer.toString(id));
+        }
+        movieIds.add("1");
+
+        MovieIdSet ids = MovieIdSet.fromMovies(movies(movieIds.toArray(String[]::new)));
+
+        assertEquals(334, ids.size(), "duplicates are counted once");
+        for (int id = 0; id <= 1100; id++) {
+            assertEquals(id <= 1000 && id % 3 == 1, ids.contains(Integer.toString(id)), Integer.toString(id));
+        }
+    }
+
+    @Test
+    void sparseIdsAreFound() {
+        MovieIdSet ids = MovieIdSet.fromMovies(movies("7", "2000000000", "42", "7", "Integer.MAX_VALUE",
+            Integer.toString(Integer.MAX_VALUE)));
+
+        assertEquals(4, ids.size());
+        assertTrue(ids.contains("7"));
+        assertTrue(ids.contains("42"));
+        assertTrue(ids.contains("2000000000"));
+        assertTrue(ids.contains(Integer.toString(Integer.MAX_VALUE)));
+        assertFalse(ids.contains("8"));
+        assertFalse(ids.contains("1999999999"));
+    }
+
+    @Test
+    void invalidLookupsAreNotFound() {
+        MovieIdSet ids = MovieIdSet.fromMovies(movies("1", "2", "3"));
+
+        assertFalse(ids.contains(null));
+        assertFalse(ids.contains(""));
+        assertFalse(ids.contains("-1"));
+        assertFalse(ids.contains("2a"));
+        assertFalse(ids.contains(" 2"));
+        assertFalse(ids.contains("4294967298"), "overflowing ids must not wrap around to 2");
+        assertFalse(ids.contains("64"));
+    }
+
+    @Test
+    void parsesIdsWithoutOverflow() {
+        assertEquals(0, MovieIdSet.parseId("0"));
+        assertEquals(123, MovieIdSet.parseId("00123"));
+        assertEquals(Integer.MAX_VALUE, MovieIdSet.parseId("2147483647"));
+        assertEquals(-1, MovieIdSet.parseId("2147483648"));
+        assertEquals(-1, MovieIdSet.parseId("99999999999"));
+        assertEquals(-1, MovieIdSet.parseId("+1"));
+        assertEquals(-1, MovieIdSet.parseId(null));
+    }
+
+    private static List<MovieEvent> movies(String... movieIds) {
+        List<MovieEvent> movies = new ArrayList<>(movieIds.length);
+        for (String movieId : movieIds) {
+            movies.add(new MovieEvent(movieId, "Movie " + movieId, "Drama"));
+        }
+        return movies;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class GenreTest {
+
+    @Test
+    void parsesPipeDelimitedGenres() {
+        long mask = Genre.parseMask("Adventure|Animation|Children|Comedy|Fantasy");
+
+        assertEquals(EnumSet.of(Genre.ADVENTURE, Genre.ANIMATION, Genre.CHILDREN, Genre.COMEDY, Genre.FANTASY),
+            Genre.fromMask(mask));
+    }
+
+    @Test
+    void parsesLabelsWithPunctuationCaseAndSpaces() {
+        assertEquals(Genre.SCI_FI.mask() | Genre.FILM_NOIR.mask() | Genre.IMAX.mask(),
+            Genre.parseMask("Sci-Fi| film-noir |imax"));
+    }
+
+    @Test
+    void noGenresListedIsEmpty() {
+        assertEquals(0L, Genre.parseMask("(no genres listed)"));
+        assertEquals(0L, Genre.parseMask(""));
+        assertEquals(0L, Genre.parseMask(null));
+        assertEquals(Set.of(), Genre.fromMask(0L));
+    }
+
+    @Test
+    void unknownGenresContributeNoBits() {
+        assertEquals(Genre.DRAMA.mask() | Genre.WAR.mask(), Genre.parseMask("Drama|Biopic||War|"));
+        assertEquals(Genre.ACTION.mask(), Genre.parseMask("Action|Act|Actions"));
+    }
+
+    @Test
+    void everyGenreRoundTrips() {
+        long all = 0L;
+        for (Genre genre : Genre.values()) {
+            assertEquals(genre.mask(), Genre.parseMask(genre.getLabel()), genre.getLabel());
+            assertEquals(EnumSet.of(genre), Genre.fromMask(genre.mask()));
+            all |= genre.mask();
+        }
+        assertEquals(EnumSet.allOf(Genre.class), Genre.fromMask(all));
+    }
+}
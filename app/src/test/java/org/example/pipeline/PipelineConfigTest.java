@@ -0,0 +1,161 @@
+package org.example.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+class PipelineConfigTest {
+
+    @Test
+    void defaultsToTheMovieLensSampleFiles() {
+        List<SourceDefinition> sources = PipelineConfig.load(new Properties());
+
+        assertEquals(List.of("movies", "links", "ratings", "tags"), names(sources));
+        assertEquals(List.of(0, 1, 2, 2), priorities(sources));
+        SourceDefinition ratings = sources.get(2);
+        assertEquals(SourceType.RATINGS, ratings.type());
+        assertEquals("./ml_20m/ratings_small.csv", ratings.path());
+        assertNull(ratings.topic());
+        assertEquals(SourceDefinition.Sink.KAFKA, ratings.sink());
+        assertEquals(1, ratings.parallelism());
+        assertEquals(10_000, ratings.maxInFlight());
+    }
+
+    @Test
+    void defaultSourcesTakeOverrides() {
+        Properties config = new Properties();
+        config.setProperty("pipeline.source.ratings.parallelism", "6");
+        config.setProperty("pipeline.source.ratings.priority", "5");
+        config.setProperty("pipeline.source.ratings.path", "/data/ratings.csv");
+        config.setProperty("topic.tags.envelope.enabled", "true");
+
+        List<SourceDefinition> sources = PipelineConfig.load(config);
+
+        assertEquals(List.of("movies", "links", "tags", "ratings"), names(sources));
+        SourceDefinition ratings = sources.get(3);
+        assertEquals(6, ratings.parallelism());
+        assertEquals("/data/ratings.csv", ratings.path());
+        assertEquals(SourceDefinition.Sink.ENVELOPE, sources.get(2).sink());
+    }
+
+    @Test
+    void loadsConfiguredSourcesOrderedByPriority() {
+        Properties config = new Properties();
+        config.setProperty("pipeline.sources", "big, ,movies");
+        config.setProperty("pipeline.source.big.type", "Ratings");
+        config.setProperty("pipeline.source.big.path", " /data/ratings.csv ");
+        config.setProperty("pipeline.source.big.topic", "ratings-v2");
+        config.setProperty("pipeline.source.big.sink", "transactional");
+        config.setProperty("pipeline.source.big.max.in.flight", "100");
+        config.setProperty("pipeline.source.big.priority", "3");
+        config.setProperty("pipeline.source.movies.path", "/data/movies.csv");
+
+        List<SourceDefinition> sources = PipelineConfig.load(config);
+
+        assertEquals(List.of("movies", "big"), names(sources));
+        assertEquals(SourceType.MOVIES, sources.get(0).type());
+        assertEquals(0, sources.get(0).priority());
+        SourceDefinition big = sources.get(1);
+        assertEquals(new SourceDefinition("big", SourceType.RATINGS, "/data/ratings.csv", "ratings-v2",
+            SourceDefinition.Sink.TRANSACTIONAL, 1, 100, 3), big);
+    }
+
+    @Test
+    void rejectsInvalidSources() {
+        assertThrows(IllegalArgumentException.class, () -> PipelineConfig.load(
+            config("pipeline.sources", "movies")));
+        assertThrows(IllegalArgumentException.class, () -> PipelineConfig.load(
+            config("pipeline.sources", "reviews", "pipeline.source.reviews.path", "reviews.csv")));
+        assertThrows(IllegalArgumentException.class, () -> PipelineConfig.load(
+            config("pipeline.source.ratings.parallelism", "six")));
+        assertThrows(IllegalArgumentException.class, () -> PipelineConfig.load(
+            config("pipeline.source.ratings.parallelism", "0")));
+        assertThrows(IllegalArgumentException.class, () -> PipelineConfig.load(
+            config("pipeline.source.ratings.sink", "transactional", "pipeline.source.ratings.parallelism", "2")));
+        assertThrows(IllegalArgumentException.class, () -> PipelineConfig.load(
+            config("pipeline.source.ratings.sink", "files")));
+    }
+
+    @Test
+    void producerConfigAppliesOnlyTheSourcesOverrides() {
+        Properties config = config(
+            "bootstrap.servers", "broker:9092",
+            "linger.ms", "5",
+            "topic.ratings", "ratings",
+            "pipeline.source.big.producer.linger.ms", "20",
+            "pipeline.source.big.producer.batch.size", "262144",
+            "pipeline.source.tags.producer.linger.ms", "50");
+        SourceDefinition big = new SourceDefinition("big", SourceType.RATINGS, "ratings.csv", "ratings-v2",
+            SourceDefinition.Sink.KAFKA, 1, 100, 0);
+        SourceDefinition ratings = new SourceDefinition("ratings", SourceType.RATINGS, "ratings.csv", null,
+            SourceDefinition.Sink.KAFKA, 1, 100, 0);
+
+        Properties bigConfig = PipelineConfig.producerConfig(config, big);
+        Properties ratingsConfig = PipelineConfig.producerConfig(config, ratings);
+
+        assertEquals("broker:9092", bigConfig.getProperty("bootstrap.servers"));
+        assertEquals("20", bigConfig.getProperty("linger.ms"));
+        assertEquals("262144", bigConfig.getProperty("batch.size"));
+        assertEquals("ratings-v2", bigConfig.getProperty("topic.ratings"));
+        assertEquals("5", ratingsConfig.getProperty("linger.ms"));
+        assertEquals("ratings", ratingsConfig.getProperty("topic.ratings"));
+        assertFalse(ratingsConfig.containsKey("batch.size"));
+        assertEquals("5", config.getProperty("linger.ms"), "the shared config is not modified");
+    }
+
+    @Test
+    void onlyTransactionalSinksKeepTheTransactionalId() {
+        Properties config = config(
+            "bootstrap.servers", "broker:9092",
+            "transactional.id", "shared",
+            "pipeline.source.tags.producer.transactional.id", "tags");
+
+        for (SourceDefinition.Sink sink : List.of(SourceDefinition.Sink.KAFKA, SourceDefinition.Sink.ENVELOPE)) {
+            for (String name : List.of("ratings", "tags")) {
+                SourceDefinition source = new SourceDefinition(name, SourceType.RATINGS, "ratings.csv", null,
+                    sink, 1, 100, 0);
+                assertFalse(PipelineConfig.producerConfig(config, source).containsKey("transactional.id"),
+                    name + " " + sink);
+            }
+        }
+        SourceDefinition transactional = new SourceDefinition("ratings", SourceType.RATINGS, "ratings.csv", null,
+            SourceDefinition.Sink.TRANSACTIONAL, 1, 100, 0);
+        assertEquals("shared", PipelineConfig.producerConfig(config, transactional).getProperty("transactional.id"));
+
+        Properties plain = PipelineConfig.nonTransactional(config);
+        assertFalse(plain.containsKey("transactional.id"));
+        assertEquals("broker:9092", plain.getProperty("bootstrap.servers"));
+        assertEquals("shared", config.getProperty("transactional.id"), "the shared config is not modified");
+    }
+
+    private static Properties config(String... keysAndValues) {
+        Properties config = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            config.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return config;
+    }
+
+    private static List<String> names(List<SourceDefinition> sources) {
+        List<String> names = new ArrayList<>(sources.size());
+        for (SourceDefinition source : sources) {
+            names.add(source.name());
+        }
+        return names;
+    }
+
+    private static List<Integer> priorities(List<SourceDefinition> sources) {
+        List<Integer> priorities = new ArrayList<>(sources.size());
+        for (SourceDefinition source : sources) {
+            priorities.add(source.priority());
+        }
+        return priorities;
+    }
+}
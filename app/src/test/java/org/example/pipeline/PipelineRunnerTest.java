@@ -0,0 +1,193 @@
+package org.example.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.example.checkpoint.SourceCheckpoint;
+import org.example.model.Event;
+import org.example.model.RatingEvent;
+import org.example.producer.EventProducer;
+import org.example.spool.RetrySpool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PipelineRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    private final Map<String, RecordingProducer<?>> producers = new ConcurrentHashMap<>();
+
+    @Test
+    void runsPriorityGroupsInOrder() throws Exception {
+        List<SourceDefinition> sources = PipelineConfig.load(defaultSources(3));
+        PipelineRunner runner = newRunner();
+        List<String> read = Collections.synchronizedList(new ArrayList<>());
+        for (SourceType<?> type : List.of(SourceType.MOVIES, SourceType.LINKS, SourceType.RATINGS, SourceType.TAGS)) {
+            runner.onEventsRead(type, events -> read.add(type.getName()));
+        }
+
+        runner.run(sources);
+
+        assertEquals(4, read.size());
+        assertEquals(List.of("movies", "links"), read.subList(0, 2));
+        assertTrue(read.subList(2, 4).containsAll(List.of("ratings", "tags")), "priority 2 sources run last");
+        for (String name : List.of("movies", "links", "ratings", "tags")) {
+            RecordingProducer<?> producer = producers.get(name);
+            assertEquals(3, producer.sent.size(), name);
+            assertTrue(producer.flushed && producer.closed, name);
+        }
+    }
+
+    @Test
+    void stopSkipsSourcesNotYetSent() throws Exception {
+        Properties config = defaultSources(3);
+        write("movies.csv", "movieId,title,genres");
+        List<SourceDefinition> sources = PipelineConfig.load(config);
+        PipelineRunner runner = newRunner();
+        List<String> read = Collections.synchronizedList(new ArrayList<>());
+        runner.onEventsRead(SourceType.MOVIES, movies -> {
+            read.add("movies");
+            if (movies.isEmpty()) {
+                runner.stop();
+            }
+        });
+        runner.onEventsRead(SourceType.RATINGS, ratings -> read.add("ratings"));
+
+        runner.run(sources);
+
+        assertEquals(List.of("movies"), read);
+        assertTrue(producers.isEmpty(), "no producer is created once the pipeline is stopped");
+    }
+
+    @Test
+    void stagesFilterEventsAndKeysKeepTheirOrder() throws Exception {
+        StringBuilder csv = new StringBuilder("userId,movieId,rating,timestamp");
+        for (int i = 0; i < 100; i++) {
+            csv.append('\n').append("u").append(i).append(",m").append(i % 7).append(",4.0,").append(i);
+        }
+        Properties config = new Properties();
+        config.setProperty("pipeline.sources", "ratings");
+        config.setProperty("pipeline.source.ratings.path", write("ratings.csv", csv.toString()).toString());
+        config.setProperty("pipeline.source.ratings.parallelism", "3");
+        config.setProperty("pipeline.source.ratings.max.in.flight", "2");
+        PipelineRunner runner = newRunner();
+        runner.addStage(SourceType.RATINGS, rating -> !rating.getMovieId().equals("m0"));
+
+        runner.run(PipelineConfig.load(config));
+
+        @SuppressWarnings("unchecked")
+        List<RatingEvent> sent = (List<RatingEvent>) producers.get("ratings").sent;
+        assertEquals(100 - 15, sent.size());
+        Map<String, Long> lastTimestamp = new HashMap<>();
+        for (RatingEvent rating : sent) {
+            assertFalse(rating.getMovieId().equals("m0"));
+            Long previous = lastTimestamp.put(rating.getMovieId(), rating.getTimestamp());
+            assertTrue(previous == null || previous < rating.getTimestamp(), "events of a key keep their order");
+        }
+    }
+
+    @Test
+    void failedStageStopsTheRunAndClosesTheProducer() throws Exception {
+        Properties config = new Properties();
+        config.setProperty("pipeline.sources", "ratings");
+        config.setProperty("pipeline.source.ratings.path",
+            write("ratings.csv", "userId,movieId,rating,timestamp\nu1,m1,4.0,1\nu2,m2,3.0,2").toString());
+        PipelineRunner runner = newRunner();
+        runner.addStage(SourceType.RATINGS, rating -> {
+            throw new IOException("stage failed for " + rating.getKey());
+        });
+
+        IOException error = assertThrows(IOException.class, () -> runner.run(PipelineConfig.load(config)));
+
+        assertTrue(error.getMessage().startsWith("stage failed"));
+        RecordingProducer<?> producer = producers.get("ratings");
+        assertTrue(producer.sent.isEmpty());
+        assertTrue(producer.closed);
+    }
+
+    private PipelineRunner newRunner() {
+        return new PipelineRunner(new Properties(), null) {
+            @Override
+            <T extends Event> EventProducer<T> createProducer(SourceDefinition source, SourceType<T> type,
+                                                              SourceCheckpoint checkpoint) {
+                RecordingProducer<T> producer = new RecordingProducer<>();
+                producers.put(source.name(), producer);
+                return producer;
+            }
+        };
+    }
+
+    /**
+     * Writes the four MovieLens files with the given number of rows each
+     * and points the default sources at them
+     */
+    private Properties defaultSources(int rows) throws IOException {
+        StringBuilder movies = new StringBuilder("movieId,title,genres");
+        StringBuilder links = new StringBuilder("movieId,imdbId,tmdbId");
+        StringBuilder ratings = new StringBuilder("userId,movieId,rating,timestamp");
+        StringBuilder tags = new StringBuilder("userId,movieId,tag,timestamp");
+        for (int i = 1; i <= rows; i++) {
+            movies.append('\n').append(i).append(",Movie ").append(i).append(" (1995),Drama");
+            links.append('\n').append(i).append(",011").append(i).append(',').append(i);
+            ratings.append('\n').append("u").append(i).append(',').append(i).append(",4.0,").append(i);
+            tags.append('\n').append("u").append(i).append(',').append(i).append(",funny,").append(i);
+        }
+        Properties config = new Properties();
+        config.setProperty("pipeline.source.movies.path", write("movies.csv", movies.toString()).toString());
+        config.setProperty("pipeline.source.links.path", write("links.csv", links.toString()).toString());
+        config.setProperty("pipeline.source.ratings.path", write("ratings.csv", ratings.toString()).toString());
+        config.setProperty("pipeline.source.tags.path", write("tags.csv", tags.toString()).toString());
+        return config;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content + "\n");
+        return file;
+    }
+
+    /**
+     * Records sent events and completes each send immediately
+     */
+    private static final class RecordingProducer<T extends Event> implements EventProducer<T> {
+        private final List<T> sent = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean flushed;
+        private volatile boolean closed;
+
+        @Override
+        public void sendEvent(T event, Runnable onComplete) {
+            sent.add(event);
+            if (onComplete != null) {
+                onComplete.run();
+            }
+        }
+
+        @Override
+        public void setRetrySpool(RetrySpool retrySpool) {
+        }
+
+        @Override
+        public void flush() {
+            flushed = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.producer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.model.RatingEvent;
+import org.example.serializer.JsonSerializer;
+import org.junit.jupiter.api.Test;
+
+class AbstractEventProducerTest {
+
+    private static final String TOPIC = "ratings";
+    private static final int PARTITIONS = 6;
+    private static final int POOL_SIZE = 3;
+
+    @Test
+    void eachKeyIsSentThroughOneInstanceInOrder() throws Exception {
+        List<MockProducer<String, RatingEvent>> mocks = newMockProducers(true);
+        AbstractEventProducer<RatingEvent> producer = newProducer(mocks);
+
+        List<RatingEvent> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            events.add(new RatingEvent("u" + i, "m" + (i % 17), 4.0, (long) i));
+        }
+        for (RatingEvent event : events) {
+            producer.sendEvent(event, null);
+        }
+
+        Set<Integer> used = new HashSet<>();
+        for (int instance = 0; instance < POOL_SIZE; instance++) {
+            List<ProducerRecord<String, RatingEvent>> sent = mocks.get(instance).history();
+            long previous = -1;
+            String previousKey = null;
+            for (ProducerRecord<String, RatingEvent> record : sent) {
+                assertEquals(instance, KeyPartitioner.partition(record.key(), PARTITIONS) % POOL_SIZE, record.key());
+                if (record.key().equals(previousKey)) {
+                    assertTrue(record.value().getTimestamp() > previous, "events of a key keep their order");
+                }
+                previous = record.value().getTimestamp();
+                previousKey = record.key();
+            }
+            if (!sent.isEmpty()) {
+                used.add(instance);
+            }
+            assertEquals(sent.size(), producer.getSentCount(instance));
+            assertEquals(0, producer.getFailedCount(instance));
+        }
+        assertEquals(POOL_SIZE, used.size(), "17 keys are spread over all instances");
+        assertEquals(events.size(), mocks.stream().mapToInt(mock -> mock.history().size()).sum());
+        for (RatingEvent event : events) {
+            String key = event.getKey();
+            assertEquals(1, mocks.stream().filter(mock -> keys(mock.history()).contains(key)).count(), key);
+        }
+    }
+
+    @Test
+    void countsSentAndFailedEventsPerInstance() throws Exception {
+        List<MockProducer<String, RatingEvent>> mocks = newMockProducers(false);
+        AbstractEventProducer<RatingEvent> producer = newProducer(mocks);
+        AtomicInteger completed = new AtomicInteger();
+
+        String key = "m1";
+        int instance = KeyPartitioner.partition(key, PARTITIONS) % POOL_SIZE;
+        for (int i = 0; i < 3; i++) {
+            producer.sendEvent(new RatingEvent("u" + i, key, 3.5, (long) i), completed::incrementAndGet);
+        }
+        MockProducer<String, RatingEvent> mock = mocks.get(instance);
+        assertTrue(mock.completeNext());
+        assertTrue(mock.errorNext(new KafkaException("broker unavailable")));
+        assertTrue(mock.completeNext());
+
+        assertEquals(3, completed.get());
+        assertEquals(2, producer.getSentCount(instance));
+        assertEquals(1, producer.getFailedCount(instance));
+        for (int other = 0; other < POOL_SIZE; other++) {
+            if (other != instance) {
+                assertEquals(0, producer.getSentCount(other));
+                assertEquals(0, producer.getFailedCount(other));
+            }
+        }
+    }
+
+    @Test
+    void unkeyedEventsAreSpreadRoundRobin() throws Exception {
+        List<MockProducer<String, RatingEvent>> mocks = newMockProducers(true);
+        AbstractEventProducer<RatingEvent> producer = newProducer(mocks);
+
+        for (int i = 0; i < 2 * POOL_SIZE; i++) {
+            producer.sendEvent(new RatingEvent("u" + i, null, 1.0, (long) i), null);
+        }
+
+        for (MockProducer<String, RatingEvent> mock : mocks) {
+            assertEquals(2, mock.history().size());
+        }
+    }
+
+    @Test
+    void closeClosesEveryInstance() {
+        List<MockProducer<String, RatingEvent>> mocks = newMockProducers(true);
+
+        newProducer(mocks).close();
+
+        for (MockProducer<String, RatingEvent> mock : mocks) {
+            assertTrue(mock.closed());
+        }
+    }
+
+    private static List<MockProducer<String, RatingEvent>> newMockProducers(boolean autoComplete) {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            partitions.add(new PartitionInfo(TOPIC, partition, node, new Node[] {node}, new Node[] {node}));
+        }
+        Cluster cluster = new Cluster("test", List.of(node), partitions, Set.of(), Set.of());
+
+        List<MockProducer<String, RatingEvent>> mocks = new ArrayList<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            mocks.add(new MockProducer<>(cluster, autoComplete, new KeyHashPartitioner(),
+                new StringSerializer(), new JsonSerializer<>()));
+        }
+        return mocks;
+    }
+
+    private static AbstractEventProducer<RatingEvent> newProducer(List<MockProducer<String, RatingEvent>> mocks) {
+        return new AbstractEventProducer<>(mocks, TOPIC) {
+        };
+    }
+
+    private static Set<String> keys(List<ProducerRecord<String, RatingEvent>> records) {
+        Set<String> keys = new HashSet<>();
+        for (ProducerRecord<String, RatingEvent> record : records) {
+            keys.add(record.key());
+        }
+        return keys;
+    }
+
+    /**
+     * Partitions keys as Kafka's default partitioner does
+     */
+    private static final class KeyHashPartitioner implements Partitioner {
+        @Override
+        public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes,
+                             Cluster cluster) {
+            return key == null ? 0 : KeyPartitioner.partition((String) key, PARTITIONS);
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
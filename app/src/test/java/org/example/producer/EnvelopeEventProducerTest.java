@@ -0,0 +1,128 @@
+package org.example.producer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.model.RatingEvent;
+import org.example.serializer.EnvelopeCodec;
+import org.example.serializer.JsonSerializer;
+import org.example.spool.RetrySpool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EnvelopeEventProducerTest {
+
+    private static final String TOPIC = "ratings";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void fullEnvelopeIsSentWithItsEvents() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer();
+        EnvelopeEventProducer<RatingEvent> producer = newProducer(mock, 2, 60_000);
+        AtomicInteger completed = new AtomicInteger();
+
+        producer.sendEvent(event(0), completed::incrementAndGet);
+        assertTrue(mock.history().isEmpty());
+        producer.sendEvent(event(1), completed::incrementAndGet);
+
+        List<ProducerRecord<String, byte[]>> sent = mock.history();
+        assertEquals(1, sent.size());
+        assertEquals("m", sent.get(0).key());
+        assertEquals(2, EnvelopeCodec.decode(sent.get(0).value()).size());
+        assertEquals(2, completed.get());
+        assertEquals(1, producer.getEnvelopeCount());
+        assertEquals(2, producer.getEventCount());
+        producer.close();
+    }
+
+    @Test
+    void failedSendIsSpooledAndCompletesItsEvents() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer();
+        EnvelopeEventProducer<RatingEvent> producer = newProducer(mock, 2, 60_000);
+        AtomicInteger completed = new AtomicInteger();
+
+        try (RetrySpool spool = new RetrySpool(dir, 1 << 20, 3, 60_000, 60_000)) {
+            producer.setRetrySpool(spool);
+            mock.sendException = new KafkaException("buffer exhausted");
+            producer.sendEvent(event(0), completed::incrementAndGet);
+            producer.sendEvent(event(1), completed::incrementAndGet);
+
+            assertEquals(2, completed.get(), "in-flight permits are released");
+            assertEquals(1, spool.getAppendedCount());
+            assertEquals(0, producer.getEnvelopeCount());
+
+            mock.sendException = null;
+            producer.sendEvent(event(2), completed::incrementAndGet);
+            producer.flush();
+            assertEquals(3, completed.get());
+            assertEquals(1, mock.history().size());
+            producer.close();
+        }
+    }
+
+    @Test
+    void lingerTimerSurvivesFailedSend() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer();
+        EnvelopeEventProducer<RatingEvent> producer = newProducer(mock, 100, 10);
+        AtomicInteger completed = new AtomicInteger();
+
+        mock.sendException = new KafkaException("buffer exhausted");
+        producer.sendEvent(event(0), completed::incrementAndGet);
+        awaitTrue(() -> completed.get() == 1);
+
+        mock.sendException = null;
+        producer.sendEvent(event(1), completed::incrementAndGet);
+        awaitTrue(() -> completed.get() == 2);
+        assertEquals(1, mock.history().size(), "the linger timer still sends after a failure");
+        producer.close();
+    }
+
+    @Test
+    void closeSendsOpenEnvelopes() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer();
+        EnvelopeEventProducer<RatingEvent> producer = newProducer(mock, 100, 60_000);
+
+        for (int i = 0; i < 3; i++) {
+            producer.sendEvent(event(i), null);
+        }
+        producer.close();
+
+        assertEquals(1, mock.history().size());
+        assertEquals(3, EnvelopeCodec.decode(mock.history().get(0).value()).size());
+        assertTrue(mock.closed());
+    }
+
+    private static MockProducer<String, byte[]> newMockProducer() {
+        return new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    private static EnvelopeEventProducer<RatingEvent> newProducer(MockProducer<String, byte[]> mock,
+                                                                  int maxEvents, long lingerMs) {
+        return new EnvelopeEventProducer<>(mock, new JsonSerializer<>(), TOPIC,
+            EnvelopeEventProducer.Grouping.KEY, maxEvents, 1 << 20, lingerMs);
+    }
+
+    private static RatingEvent event(int i) {
+        return new RatingEvent("u" + i, "m", 4.0, 1_000_000L + i);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 10 s");
+            Thread.sleep(5);
+        }
+    }
+}
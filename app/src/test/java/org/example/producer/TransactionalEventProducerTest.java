@@ -0,0 +1,213 @@
+package org.example.producer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.checkpoint.SourceCheckpoint;
+import org.example.model.RatingEvent;
+import org.example.serializer.JsonSerializer;
+import org.junit.jupiter.api.Test;
+
+class TransactionalEventProducerTest {
+
+    private static final String TOPIC = "ratings";
+    private static final String CHECKPOINT_TOPIC = "checkpoints";
+    private static final SourceCheckpoint START = new SourceCheckpoint("ratings", "ratings.csv", 1024L, 1L, 0L);
+
+    @Test
+    void commitsEveryChunkTogetherWithItsCheckpoint() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer(true);
+        TransactionalEventProducer<RatingEvent> producer = newProducer(mock, 3, START);
+        List<RatingEvent> events = events(7);
+
+        producer.sendEvent(events.get(0), 0, null);
+        producer.sendEvent(events.get(1), 1, null);
+        assertTrue(mock.history().isEmpty(), "events are not visible before their chunk commits");
+        assertEquals(2, mock.uncommittedRecords().size());
+
+        producer.sendEvent(events.get(2), 2, null);
+        assertEquals(1, mock.commitCount());
+        assertTrue(mock.uncommittedRecords().isEmpty());
+        assertEquals(List.of("m0", "m1", "m2", "ratings"), keys(mock.history()));
+        assertCheckpoint(mock.history().get(3), 3);
+
+        for (int i = 3; i < events.size(); i++) {
+            producer.sendEvent(events.get(i), i, null);
+        }
+        assertEquals(2, mock.commitCount());
+        assertEquals(List.of("m6"), keys(mock.uncommittedRecords()));
+
+        producer.commit(events.size());
+        assertEquals(3, mock.commitCount());
+        assertTrue(mock.transactionCommitted());
+        List<ProducerRecord<String, byte[]>> history = mock.history();
+        assertEquals(events.size() + 3, history.size());
+        assertCheckpoint(history.get(7), 6);
+        assertCheckpoint(history.get(history.size() - 1), 7);
+        assertEquals(7, producer.getCommitted().offset());
+
+        producer.close();
+        assertTrue(mock.closed());
+    }
+
+    @Test
+    void commitCoversEventsDroppedAfterTheLastSend() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer(true);
+        TransactionalEventProducer<RatingEvent> producer = newProducer(mock, 100, START);
+
+        producer.sendEvent(events(1).get(0), 0, null);
+        producer.commit(5);
+        producer.flush();
+
+        assertEquals(1, mock.commitCount(), "flush without new events does not commit again");
+        assertCheckpoint(mock.history().get(1), 5);
+    }
+
+    @Test
+    void failedSendAbortsTheChunkOnCommit() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer(false);
+        TransactionalEventProducer<RatingEvent> producer = newProducer(mock, 100, START);
+        AtomicInteger completed = new AtomicInteger();
+        List<RatingEvent> events = events(2);
+
+        producer.sendEvent(events.get(0), 0, completed::incrementAndGet);
+        producer.sendEvent(events.get(1), 1, completed::incrementAndGet);
+        mock.errorNext(new KafkaException("broker unavailable"));
+
+        assertThrows(KafkaException.class, () -> producer.commit(2));
+        assertTrue(mock.transactionAborted());
+        assertFalse(mock.transactionCommitted());
+        assertTrue(mock.history().isEmpty());
+        assertEquals(2, completed.get());
+        assertEquals(0, producer.getCommitted().offset());
+
+        // The producer stays usable: the chunk is sent again from the committed offset
+        producer.sendEvent(events.get(0), 0, null);
+        producer.sendEvent(events.get(1), 1, null);
+        producer.commit(2);
+        assertTrue(mock.transactionCommitted());
+        assertEquals(List.of("m0", "m1", "ratings"), keys(mock.history()));
+    }
+
+    @Test
+    void fencedProducerIsClosed() throws Exception {
+        MockProducer<String, byte[]> mock = newMockProducer(true);
+        TransactionalEventProducer<RatingEvent> producer = newProducer(mock, 100, START);
+        List<RatingEvent> events = events(2);
+
+        producer.sendEvent(events.get(0), 0, null);
+        mock.fenceProducer();
+
+        // MockProducer reports the fencing directly or wrapped, depending on the call that hits it
+        KafkaException error = assertThrows(KafkaException.class, () -> producer.commit(1));
+        assertTrue(error instanceof ProducerFencedException || error.getCause() instanceof ProducerFencedException);
+        assertTrue(mock.closed());
+        assertTrue(mock.history().isEmpty());
+        assertThrows(IllegalStateException.class, () -> producer.sendEvent(events.get(1), 1, null));
+    }
+
+    @Test
+    void resumeFromCheckpointSkipsCommittedEvents() throws Exception {
+        List<RatingEvent> events = events(5);
+
+        // First run commits one chunk, then stops before the second one commits
+        MockProducer<String, byte[]> first = newMockProducer(true);
+        TransactionalEventProducer<RatingEvent> firstProducer = newProducer(first, 2, START);
+        for (int offset = 0; offset < 3; offset++) {
+            firstProducer.sendEvent(events.get(offset), offset, null);
+        }
+        firstProducer.close();
+        assertTrue(first.transactionAborted());
+        SourceCheckpoint checkpoint = firstProducer.getCommitted();
+        assertEquals(2, checkpoint.offset());
+
+        // Second run resumes from the committed checkpoint
+        MockProducer<String, byte[]> second = newMockProducer(true);
+        TransactionalEventProducer<RatingEvent> secondProducer = newProducer(second, 2, checkpoint);
+        assertThrows(IllegalArgumentException.class, () -> secondProducer.sendEvent(events.get(1), 1, null));
+        for (long offset = checkpoint.offset(); offset < events.size(); offset++) {
+            secondProducer.sendEvent(events.get((int) offset), offset, null);
+        }
+        secondProducer.commit(events.size());
+
+        List<String> sent = new ArrayList<>();
+        sent.addAll(eventKeys(first.history()));
+        sent.addAll(eventKeys(second.history()));
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4"), sent);
+        assertCheckpoint(second.history().get(second.history().size() - 1), 5);
+    }
+
+    @Test
+    void transactionalIdIsDerivedPerSource() {
+        Properties config = new Properties();
+        config.setProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "shared");
+        config.setProperty(TransactionalEventProducer.TRANSACTIONAL_ID_PREFIX_CONFIG, "ingest");
+
+        Properties ratings = TransactionalEventProducer.transactionalConfig(config, "ratings");
+        Properties tags = TransactionalEventProducer.transactionalConfig(config, "tags");
+
+        assertEquals("ingest-ratings", ratings.getProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG));
+        assertEquals("ingest-tags", tags.getProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG));
+        assertEquals("true", ratings.getProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals("all", ratings.getProperty(ProducerConfig.ACKS_CONFIG));
+    }
+
+    private static MockProducer<String, byte[]> newMockProducer(boolean autoComplete) {
+        return new MockProducer<>(autoComplete, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    private static TransactionalEventProducer<RatingEvent> newProducer(MockProducer<String, byte[]> mock,
+                                                                      int chunkRecords, SourceCheckpoint checkpoint) {
+        return new TransactionalEventProducer<>(mock, new JsonSerializer<>(), TOPIC, CHECKPOINT_TOPIC,
+            chunkRecords, checkpoint);
+    }
+
+    private static List<RatingEvent> events(int count) {
+        List<RatingEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new RatingEvent("u" + i, "m" + i, 4.0, 1_000_000L + i));
+        }
+        return events;
+    }
+
+    private static List<String> keys(List<ProducerRecord<String, byte[]>> records) {
+        List<String> keys = new ArrayList<>(records.size());
+        for (ProducerRecord<String, byte[]> record : records) {
+            keys.add(record.key());
+        }
+        return keys;
+    }
+
+    private static List<String> eventKeys(List<ProducerRecord<String, byte[]>> records) {
+        List<String> keys = new ArrayList<>(records.size());
+        for (ProducerRecord<String, byte[]> record : records) {
+            if (TOPIC.equals(record.topic())) {
+                keys.add(record.key());
+            }
+        }
+        return keys;
+    }
+
+    private static void assertCheckpoint(ProducerRecord<String, byte[]> record, long offset) throws IOException {
+        assertEquals(CHECKPOINT_TOPIC, record.topic());
+        assertEquals(START.source(), record.key());
+        SourceCheckpoint checkpoint = SourceCheckpoint.fromJson(record.value());
+        assertEquals(offset, checkpoint.offset());
+        assertTrue(checkpoint.sameFile(START));
+    }
+}
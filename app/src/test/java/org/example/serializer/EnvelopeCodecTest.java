@@ -0,0 +1,99 @@
+package org.example.serializer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+
+class EnvelopeCodecTest {
+
+    @Test
+    void roundTripsEvents() {
+        List<byte[]> events = List.of(bytes("{\"movieId\":\"1\"}"), new byte[0], bytes("{\"movieId\":\"2\"}"));
+
+        byte[] envelope = EnvelopeCodec.encode(events);
+        List<byte[]> decoded = EnvelopeCodec.decode(envelope);
+
+        assertEquals(EnvelopeCodec.HEADER_SIZE + 3 * EnvelopeCodec.ENTRY_OVERHEAD + 30, envelope.length);
+        assertEquals(events.size(), decoded.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertArrayEquals(events.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void roundTripsEmptyEnvelope() {
+        byte[] envelope = EnvelopeCodec.encode(List.of());
+
+        assertEquals(EnvelopeCodec.HEADER_SIZE, envelope.length);
+        assertEquals(0, EnvelopeCodec.decode(envelope).size());
+    }
+
+    @Test
+    void decodesWithDeserializer() {
+        byte[] envelope = EnvelopeCodec.encode(List.of(bytes("a"), bytes("bc")));
+
+        assertEquals(List.of("a", "bc"), EnvelopeCodec.decode(envelope, "movies", new StringDeserializer()));
+    }
+
+    @Test
+    void rejectsTruncatedEnvelope() {
+        byte[] envelope = EnvelopeCodec.encode(List.of(bytes("first"), bytes("second")));
+
+        for (int length = 0; length < envelope.length; length++) {
+            byte[] truncated = Arrays.copyOf(envelope, length);
+            assertThrows(IllegalArgumentException.class, () -> EnvelopeCodec.decode(truncated),
+                "truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        byte[] envelope = EnvelopeCodec.encode(List.of(bytes("event")));
+
+        byte[] padded = Arrays.copyOf(envelope, envelope.length + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> EnvelopeCodec.decode(padded));
+    }
+
+    @Test
+    void rejectsCountLargerThanThePayload() {
+        byte[] envelope = ByteBuffer.allocate(EnvelopeCodec.HEADER_SIZE + EnvelopeCodec.ENTRY_OVERHEAD)
+            .put(EnvelopeCodec.MAGIC).put(EnvelopeCodec.VERSION).putInt(Integer.MAX_VALUE).putInt(0)
+            .array();
+
+        assertThrows(IllegalArgumentException.class, () -> EnvelopeCodec.decode(envelope));
+    }
+
+    @Test
+    void rejectsNegativeLengths() {
+        byte[] envelope = ByteBuffer.allocate(EnvelopeCodec.HEADER_SIZE + EnvelopeCodec.ENTRY_OVERHEAD)
+            .put(EnvelopeCodec.MAGIC).put(EnvelopeCodec.VERSION).putInt(1).putInt(-1)
+            .array();
+
+        assertThrows(IllegalArgumentException.class, () -> EnvelopeCodec.decode(envelope));
+    }
+
+    @Test
+    void rejectsOtherValues() {
+        byte[] envelope = EnvelopeCodec.encode(List.of(bytes("event")));
+
+        byte[] json = bytes("{\"movieId\":\"1\"}");
+        byte[] otherVersion = envelope.clone();
+        otherVersion[1] = EnvelopeCodec.VERSION + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> EnvelopeCodec.decode(json));
+        assertThrows(IllegalArgumentException.class, () -> EnvelopeCodec.decode(otherVersion));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.spool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RetrySpoolTest {
+
+    private static final long SEGMENT_BYTES = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void spooledRecordsSurviveARestart() throws Exception {
+        // One record per segment, so the restart has several segments to pick up
+        try (RetrySpool spool = new RetrySpool(dir, 1, 3, 0, 0)) {
+            spool.append(record("ratings", 0, "k0", "v0"));
+            spool.append(record("ratings", null, null, "v1"));
+            assertEquals(2, spool.getAppendedCount());
+        }
+        assertEquals(2, segments().size());
+
+        MockProducer<byte[], byte[]> producer = newMockProducer();
+        try (RetrySpool spool = new RetrySpool(dir, 1, 3, 0, 0)) {
+            assertTrue(spool.getSizeBytes() > 0);
+            assertTrue(spool.getOldestAgeMs() > 0);
+            // Appends after the restart must not overwrite the segments of the previous run
+            spool.append(record("tags", 1, "k2", "v2"));
+
+            spool.startRetry(producer);
+            assertTrue(spool.awaitRetry(10, TimeUnit.SECONDS));
+            assertEquals(3, spool.getRecoveredCount());
+            assertEquals(0, spool.getSizeBytes());
+            assertEquals(0, spool.getOldestAgeMs());
+        }
+
+        List<ProducerRecord<byte[], byte[]>> sent = producer.history();
+        assertEquals(List.of("v0", "v1", "v2"), values(sent));
+        assertEquals("ratings", sent.get(0).topic());
+        assertEquals(Integer.valueOf(0), sent.get(0).partition());
+        assertArrayEquals(bytes("k0"), sent.get(0).key());
+        assertArrayEquals(bytes("trace"), sent.get(0).headers().lastHeader("trace-id").value());
+        assertNull(sent.get(1).partition());
+        assertNull(sent.get(1).key());
+        assertEquals("tags", sent.get(2).topic());
+        assertTrue(segments().isEmpty());
+    }
+
+    @Test
+    void failedRetryIsSpooledAgain() throws Exception {
+        FailingProducer producer = new FailingProducer(1);
+        try (RetrySpool spool = new RetrySpool(dir, SEGMENT_BYTES, 3, 0, 0)) {
+            spool.append(record("ratings", null, "k0", "v0"));
+
+            spool.startRetry(producer);
+            assertTrue(spool.awaitRetry(10, TimeUnit.SECONDS));
+            assertEquals(2, spool.getAppendedCount(), "the failed retry is appended again");
+            assertEquals(2, spool.getRetriedCount());
+            assertEquals(1, spool.getRecoveredCount());
+            assertEquals(0, spool.getDeadCount());
+        }
+        assertEquals(List.of("v0"), values(producer.history()));
+        assertTrue(segments().isEmpty());
+    }
+
+    @Test
+    void recordIsDeadLetteredAfterMaxAttempts() throws Exception {
+        FailingProducer producer = new FailingProducer(Integer.MAX_VALUE);
+        try (RetrySpool spool = new RetrySpool(dir, SEGMENT_BYTES, 2, 0, 0)) {
+            // The original send was the first attempt, the retry is the last one
+            spool.append(record("ratings", null, "k0", "v0"));
+
+            spool.startRetry(producer);
+            assertTrue(spool.awaitRetry(10, TimeUnit.SECONDS));
+            assertEquals(1, spool.getRetriedCount());
+            assertEquals(0, spool.getRecoveredCount());
+            assertEquals(1, spool.getDeadCount());
+            assertEquals(0, spool.getSizeBytes());
+        }
+        assertTrue(producer.history().isEmpty());
+        assertTrue(Files.size(dir.resolve("dead-letter.log")) > 0);
+        assertTrue(segments().isEmpty());
+    }
+
+    @Test
+    void corruptSegmentIsQuarantined() throws Exception {
+        try (RetrySpool spool = new RetrySpool(dir, SEGMENT_BYTES, 3, 0, 0)) {
+            spool.append(record("ratings", null, "k0", "v0"));
+            spool.append(record("ratings", null, "k1", "v1"));
+        }
+        Path segment = segments().get(0);
+        // A torn record, as left by a crash in the middle of an append
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(segment, StandardOpenOption.APPEND))) {
+            out.writeInt(100);
+            out.writeInt(0);
+            out.write(new byte[10]);
+        }
+
+        MockProducer<byte[], byte[]> producer = newMockProducer();
+        try (RetrySpool spool = new RetrySpool(dir, SEGMENT_BYTES, 3, 0, 0)) {
+            spool.startRetry(producer);
+            assertTrue(spool.awaitRetry(10, TimeUnit.SECONDS));
+            assertEquals(2, spool.getRecoveredCount());
+            assertEquals(1, spool.getQuarantinedCount());
+        }
+        assertEquals(List.of("v0", "v1"), values(producer.history()));
+        assertTrue(segments().isEmpty());
+        assertTrue(Files.exists(segment.resolveSibling(segment.getFileName() + ".corrupt")));
+    }
+
+    private List<Path> segments() throws Exception {
+        List<Path> segments = new ArrayList<>();
+        try (var files = Files.newDirectoryStream(dir, "segment-*.log")) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static SpooledRecord record(String topic, Integer partition, String key, String value) {
+        List<Header> headers = List.of(new RecordHeader("trace-id", bytes("trace")));
+        return new SpooledRecord(topic, partition, key == null ? null : bytes(key), bytes(value), headers,
+            System.currentTimeMillis() - 1_000, 1);
+    }
+
+    private static MockProducer<byte[], byte[]> newMockProducer() {
+        return new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+    }
+
+    private static List<String> values(List<ProducerRecord<byte[], byte[]>> records) {
+        List<String> values = new ArrayList<>(records.size());
+        for (ProducerRecord<byte[], byte[]> record : records) {
+            values.add(new String(record.value(), StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fails the given number of sends through their callback, as a broker timeout would
+     */
+    private static final class FailingProducer extends MockProducer<byte[], byte[]> {
+        private int failures;
+
+        FailingProducer(int failures) {
+            super(true, new ByteArraySerializer(), new ByteArraySerializer());
+            this.failures = failures;
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<byte[], byte[]> record, Callback callback) {
+            if (failures == 0) {
+                return super.send(record, callback);
+            }
+            failures--;
+            TimeoutException error = new TimeoutException("Expiring record for " + record.topic());
+            callback.onCompletion(null, error);
+            return CompletableFuture.failedFuture(error);
+        }
+    }
+}